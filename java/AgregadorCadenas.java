@@ -0,0 +1,143 @@
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Agrupa los locales de una misma cadena en una sola entrada.
+ *
+ * El nombre se normaliza (sin espacios a los lados, minúsculas y sin tildes)
+ * una sola vez por nombre del diccionario, no por fila. La clave normalizada
+ * se busca en otro diccionario de RestauranteTable, que ya es un hash de
+ * direccionamiento abierto sobre bytes, así el agrupamiento no crea un
+ * String ni un objeto por fila.
+ *
+ * Cada marca queda con:
+ *  - numeroResenas = suma de las reseñas de sus locales;
+ *  - rating = promedio de los ratings ponderado por reseñas (si ningún local
+ *    tiene reseñas, el promedio simple);
+ *  - el nombre original del primer local encontrado.
+ * La tabla de marcas no trae puntuación: se calcula después con el C de los
+ * locales (KernelPuntuacion), igual que el ranking por local.
+ */
+public class AgregadorCadenas {
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+
+    // Una fila por marca
+    public final RestauranteTable marcas;
+    // Cantidad de locales de cada marca
+    public final int[] locales;
+    // Marca (fila de 'marcas') de cada fila de la tabla original
+    public final int[] marcaDeFila;
+
+    private AgregadorCadenas(RestauranteTable marcas, int[] locales, int[] marcaDeFila) {
+        this.marcas = marcas;
+        this.locales = locales;
+        this.marcaDeFila = marcaDeFila;
+    }
+
+    public static AgregadorCadenas agrupar(RestauranteTable tabla) {
+        // 1. Nombre del diccionario -> clave normalizada -> id de marca
+        int nombres = tabla.cantidadNombres();
+        int[] marcaDeNombre = new int[nombres];
+        // Capacidad para el peor caso: ningún nombre se agrupa y cada clave ocupa a lo sumo los bytes de su
+        // nombre (recortar y pasar a minúsculas ASCII no alarga; solo el camino con Normalizer podría, y
+        // entonces el buffer crece)
+        RestauranteTable claves = new RestauranteTable(nombres, tabla.inicioNombre(nombres));
+        byte[] bytes = tabla.bytesNombres();
+        byte[] normalizado = new byte[64];
+        for (int id = 0; id < nombres; id++) {
+            int inicio = tabla.inicioNombre(id);
+            int largo = tabla.largoNombre(id);
+            if (normalizado.length < largo)
+                normalizado = new byte[largo * 2];
+            int largoNormalizado = normalizarAscii(bytes, inicio, largo, normalizado);
+            if (largoNormalizado < 0) {
+                // Tiene caracteres no ASCII: camino lento con Normalizer
+                byte[] b = normalizar(new String(bytes, inicio, largo, StandardCharsets.UTF_8))
+                        .getBytes(StandardCharsets.UTF_8);
+                marcaDeNombre[id] = claves.idNombre(b, 0, b.length);
+            } else {
+                marcaDeNombre[id] = claves.idNombre(normalizado, 0, largoNormalizado);
+            }
+        }
+
+        // 2. Acumular por marca en arreglos primitivos
+        int cantidadMarcas = claves.cantidadNombres();
+        int n = tabla.size();
+        double[] ponderado = new double[cantidadMarcas];
+        long[] resenas = new long[cantidadMarcas];
+        double[] sumaRating = new double[cantidadMarcas];
+        int[] locales = new int[cantidadMarcas];
+        int[] primeraFila = new int[cantidadMarcas];
+        int[] marcaDeFila = new int[n];
+        for (int fila = 0; fila < n; fila++) {
+            int marca = marcaDeNombre[tabla.nombreId[fila]];
+            int v = tabla.numeroResenas[fila];
+            double r = tabla.rating[fila];
+            if (locales[marca]++ == 0)
+                primeraFila[marca] = fila;
+            ponderado[marca] += r * v;
+            resenas[marca] += v;
+            sumaRating[marca] += r;
+            marcaDeFila[fila] = marca;
+        }
+
+        // 3. Una fila por marca (las marcas se numeran en orden de aparición). Cada
+        // marca tiene un nombre distinto, así que el diccionario se copia directo
+        // sin pasar por el hash
+        double[] rating = new double[cantidadMarcas];
+        int[] resenasMarca = new int[cantidadMarcas];
+        int[] nombreId = new int[cantidadMarcas];
+        int[] offsets = new int[cantidadMarcas + 1];
+        long totalBytes = 0;
+        for (int marca = 0; marca < cantidadMarcas; marca++)
+            totalBytes += tabla.largoNombre(tabla.nombreId[primeraFila[marca]]);
+        byte[] nombresMarcas = new byte[(int) totalBytes];
+        double sumaRatings = 0.0;
+        for (int marca = 0; marca < cantidadMarcas; marca++) {
+            rating[marca] = resenas[marca] > 0 ? ponderado[marca] / resenas[marca]
+                    : sumaRating[marca] / locales[marca];
+            resenasMarca[marca] = (int) Math.min(Integer.MAX_VALUE, resenas[marca]);
+            sumaRatings += rating[marca];
+            int id = tabla.nombreId[primeraFila[marca]];
+            int largo = tabla.largoNombre(id);
+            System.arraycopy(bytes, tabla.inicioNombre(id), nombresMarcas, offsets[marca], largo);
+            offsets[marca + 1] = offsets[marca] + largo;
+            nombreId[marca] = marca;
+        }
+        RestauranteTable marcas = RestauranteTable.desdeColumnas(cantidadMarcas, resenasMarca, rating, nombreId,
+                cantidadMarcas, offsets, nombresMarcas, sumaRatings);
+        return new AgregadorCadenas(marcas, locales, marcaDeFila);
+    }
+
+    /**
+     * Normalización completa: sin espacios a los lados, sin tildes ni
+     * diacríticos y en minúsculas ("  Café Ñandú " -> "cafe nandu").
+     */
+    public static String normalizar(String nombre) {
+        String sinTildes = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(nombre.strip(), Normalizer.Form.NFD))
+                .replaceAll("");
+        return sinTildes.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Versión rápida para nombres ASCII (la gran mayoría): recorta y pasa a
+     * minúsculas byte a byte. Devuelve -1 si encuentra un byte no ASCII.
+     */
+    private static int normalizarAscii(byte[] src, int inicio, int largo, byte[] destino) {
+        int fin = inicio + largo;
+        while (inicio < fin && (src[inicio] & 0xFF) <= ' ')
+            inicio++;
+        while (fin > inicio && (src[fin - 1] & 0xFF) <= ' ')
+            fin--;
+        int k = 0;
+        for (int i = inicio; i < fin; i++) {
+            byte c = src[i];
+            if (c < 0)
+                return -1;
+            destino[k++] = (c >= 'A' && c <= 'Z') ? (byte) (c + ('a' - 'A')) : c;
+        }
+        return k;
+    }
+}
@@ -0,0 +1,395 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Suite de benchmarks reproducibles para los algoritmos de Ordenar.
+ *
+ * Sigue el esquema de JMH sin depender de él (el proyecto se compila con
+ * javac suelto, sin Maven ni Gradle): cada benchmark tiene una fase de
+ * preparación que no se mide, iteraciones de calentamiento para el JIT e
+ * iteraciones medidas. Por cada una se reporta tiempo promedio, throughput
+ * (filas por segundo), bytes asignados por operación y actividad del GC
+ * (conteo y tiempo, desde los MXBeans), como el perfilador "gc" de JMH.
+ *
+ * Uso:
+ *   java -Xmx6g BenchmarkOrdenar [--tamanos=10000,100000,1000000,10000000]
+ *        [--distribuciones=yelp,duplicados,uniforme] [--benchmarks=heapSort.lista,...]
+ *        [--calentamiento=3] [--iteraciones=5] [--salida=resultados.csv]
+ *        [--base=resultados_anteriores.csv] [--tolerancia=10]
+ *
+ * Con --base compara contra una corrida anterior y termina con código 1 si
+ * algún benchmark es más lento que la tolerancia (en %), para usarlo como
+ * control de regresiones.
+ */
+public class BenchmarkOrdenar {
+    private static final double m = 100.0;
+    private static final PrintStream SALIDA_REAL = System.out;
+    private static final PrintStream SALIDA_NULA = new PrintStream(OutputStream.nullOutputStream());
+
+    // Datos de una combinación tamaño/distribución, compartidos por los benchmarks
+    static class Datos {
+        final int filas;
+        final String distribucion;
+        final RestauranteTable tabla;
+        Path csvYelp; // solo se genera si algún benchmark lo necesita
+
+        Datos(int filas, String distribucion, RestauranteTable tabla) {
+            this.filas = filas;
+            this.distribucion = distribucion;
+            this.tabla = tabla;
+        }
+    }
+
+    // Resultado de un benchmark en una combinación de datos
+    static class Resultado {
+        String benchmark;
+        String distribucion;
+        int filas;
+        double msPorOp;
+        double filasPorSeg;
+        double bytesPorOp;
+        long gcConteo;
+        long gcMs;
+
+        String clave() {
+            return benchmark + "|" + distribucion + "|" + filas;
+        }
+    }
+
+    // Cada benchmark recibe los datos y devuelve la operación a medir (la preparación ya hecha)
+    private static final Map<String, Function<Datos, Runnable>> BENCHMARKS = new LinkedHashMap<>();
+
+    static {
+        BENCHMARKS.put("recursividadReviews.lista", d -> {
+            ArrayList<Restaurante> lista = aLista(d.tabla);
+            return () -> Ordenar.recursividadReviews(lista, 0, lista.size() - 1);
+        });
+        BENCHMARKS.put("recursividadReviews.tabla", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> Ordenar.recursividadReviews(t, 0, t.size() - 1);
+        });
+        BENCHMARKS.put("quickSortParalelo.resenas", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> QuickSortParalelo.ordenarPorResenas(t, ForkJoinPool.commonPool());
+        });
+        BENCHMARKS.put("arraysParallelSort.resenas", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> QuickSortParalelo.ordenarPorResenasParallelSort(t);
+        });
+        BENCHMARKS.put("quickSort3Vias.resenas", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> QuickSort3Vias.ordenarPorResenas(t);
+        });
+        BENCHMARKS.put("radix.resenas", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> RadixSort.ordenarPorResenas(t);
+        });
+        BENCHMARKS.put("recursividad.lista", d -> {
+            ArrayList<Restaurante> lista = aLista(d.tabla);
+            return () -> Ordenar.recursividad(lista, 0, lista.size() - 1);
+        });
+        BENCHMARKS.put("recursividad.tabla", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> Ordenar.recursividad(t, 0, t.size() - 1);
+        });
+        BENCHMARKS.put("quickSort3Vias.puntuacion", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> QuickSort3Vias.ordenarPorPuntuacion(t);
+        });
+        BENCHMARKS.put("radix.puntuacion", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> RadixSort.ordenarPorPuntuacion(t);
+        });
+        BENCHMARKS.put("heapSort.lista", d -> {
+            ArrayList<Restaurante> lista = aLista(d.tabla);
+            return () -> Ordenar.heapSort(lista);
+        });
+        BENCHMARKS.put("heapSort.tabla", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> Ordenar.heapSort(t);
+        });
+        BENCHMARKS.put("heapIterativo.2", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> HeapSortIterativo.ordenar(t, 2, null);
+        });
+        BENCHMARKS.put("heapIterativo.4", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> HeapSortIterativo.ordenar(t, 4, null);
+        });
+        BENCHMARKS.put("topK.20", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> TopK.topPorPuntuacion(t, 20, m);
+        });
+        BENCHMARKS.put("puntuar.bucle", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> puntuar(t);
+        });
+        BENCHMARKS.put("puntuar.kernel", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> KernelPuntuacion.puntuar(t, m);
+        });
+        // Reescalar con otro m cuando C ya se conoce (solo la fórmula)
+        BENCHMARKS.put("puntuar.kernelSinC", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            double C = KernelPuntuacion.promedio(t);
+            return () -> KernelPuntuacion.puntuar(t.numeroResenas, t.rating, t.puntuacionTotal, t.size(), 50.0, C);
+        });
+        BENCHMARKS.put("agregarCadenas", d -> {
+            RestauranteTable t = copiar(d.tabla);
+            return () -> AgregadorCadenas.agrupar(t);
+        });
+        BENCHMARKS.put("calcularRatingPromedio", d -> {
+            String ruta = csvYelp(d).toString();
+            return () -> Ordenar.calcularRatingPromedio(ruta);
+        });
+    }
+
+    public static void main(String[] args) throws IOException {
+        Locale.setDefault(Locale.US);
+        Map<String, String> opciones = leerOpciones(args);
+        int[] tamanos = enteros(opciones.getOrDefault("tamanos", "10000,100000,1000000,10000000"));
+        String[] distribuciones = opciones.getOrDefault("distribuciones", "yelp,duplicados").split(",");
+        String[] seleccion = opciones.getOrDefault("benchmarks", String.join(",", BENCHMARKS.keySet())).split(",");
+        int calentamiento = Integer.parseInt(opciones.getOrDefault("calentamiento", "3"));
+        int iteraciones = Integer.parseInt(opciones.getOrDefault("iteraciones", "5"));
+        String archivoSalida = opciones.getOrDefault("salida", "resultados_benchmark.csv");
+
+        List<Resultado> resultados = new ArrayList<>();
+        System.out.printf("%-28s %-11s %10s %12s %14s %14s %6s %8s\n", "Benchmark", "Distrib.", "Filas", "ms/op",
+                "filas/s", "bytes/op", "GCs", "GC ms");
+        for (int n : tamanos) {
+            for (String distribucion : distribuciones) {
+                Datos datos = new Datos(n, distribucion, generarTabla(n, distribucion, 42));
+                puntuar(datos.tabla);
+                for (String nombre : seleccion) {
+                    Function<Datos, Runnable> benchmark = BENCHMARKS.get(nombre);
+                    if (benchmark == null) {
+                        System.err.println("Benchmark desconocido: " + nombre);
+                        continue;
+                    }
+                    Resultado r = medir(nombre, benchmark, datos, calentamiento, iteraciones);
+                    resultados.add(r);
+                    System.out.printf("%-28s %-11s %10d %12.3f %14.0f %14.0f %6d %8d\n", r.benchmark, r.distribucion,
+                            r.filas, r.msPorOp, r.filasPorSeg, r.bytesPorOp, r.gcConteo, r.gcMs);
+                }
+                if (datos.csvYelp != null)
+                    Files.deleteIfExists(datos.csvYelp);
+            }
+        }
+
+        guardar(resultados, archivoSalida);
+        System.out.println("Resultados guardados en " + archivoSalida);
+
+        if (opciones.containsKey("base")) {
+            double tolerancia = Double.parseDouble(opciones.getOrDefault("tolerancia", "10"));
+            boolean regresion = compararConBase(resultados, opciones.get("base"), tolerancia);
+            if (regresion)
+                System.exit(1);
+        }
+    }
+
+    /**
+     * Corre el benchmark: cada iteración prepara datos nuevos (sin medir) y mide
+     * solo la operación. La salida por consola de los algoritmos se descarta
+     * mientras se mide para no medir la terminal.
+     */
+    static Resultado medir(String nombre, Function<Datos, Runnable> benchmark, Datos datos, int calentamiento,
+            int iteraciones) {
+        for (int i = 0; i < calentamiento; i++) {
+            Runnable op = benchmark.apply(datos);
+            ejecutarSilencioso(op);
+        }
+
+        long nanos = 0;
+        long bytes = 0;
+        long gcConteo = 0;
+        long gcMs = 0;
+        for (int i = 0; i < iteraciones; i++) {
+            Runnable op = benchmark.apply(datos);
+            System.gc();
+            long gc0 = Metricas.conteoGc();
+            long gcT0 = Metricas.tiempoGc();
+            long b0 = Metricas.bytesAsignados();
+            long t0 = System.nanoTime();
+            ejecutarSilencioso(op);
+            nanos += System.nanoTime() - t0;
+            bytes += Metricas.bytesAsignados() - b0;
+            gcConteo += Metricas.conteoGc() - gc0;
+            gcMs += Metricas.tiempoGc() - gcT0;
+        }
+
+        Resultado r = new Resultado();
+        r.benchmark = nombre;
+        r.distribucion = datos.distribucion;
+        r.filas = datos.filas;
+        r.msPorOp = nanos / 1e6 / iteraciones;
+        r.filasPorSeg = datos.filas / (r.msPorOp / 1000.0);
+        r.bytesPorOp = (double) bytes / iteraciones;
+        r.gcConteo = gcConteo;
+        r.gcMs = gcMs;
+        return r;
+    }
+
+    private static void ejecutarSilencioso(Runnable op) {
+        System.setOut(SALIDA_NULA);
+        try {
+            op.run();
+        } finally {
+            System.setOut(SALIDA_REAL);
+        }
+    }
+
+    /**
+     * Datos sintéticos parecidos a Yelp. Ratings en medias estrellas y, según
+     * la distribución, número de reseñas:
+     *  - yelp: cola larga (Pareto alfa ~1.2), la mayoría entre 0 y 5, muy repetidos
+     *  - duplicados: solo valores entre 0 y 5 (el peor caso para particiones de 2 vías)
+     *  - uniforme: entre 0 y 10000, casi sin repetidos
+     */
+    static RestauranteTable generarTabla(int n, String distribucion, long semilla) {
+        Random rnd = new Random(semilla);
+        RestauranteTable tabla = new RestauranteTable(n);
+        int nombresDistintos = Math.max(1, n / 4);
+        for (int i = 0; i < n; i++) {
+            // 20% de las filas pertenecen a unas pocas cadenas
+            String nombre = rnd.nextInt(5) == 0 ? "Cadena " + rnd.nextInt(50)
+                    : "Restaurante " + rnd.nextInt(nombresDistintos);
+            double rating = (2 + rnd.nextInt(9)) / 2.0;
+            int resenas;
+            switch (distribucion) {
+                case "duplicados":
+                    resenas = rnd.nextInt(6);
+                    break;
+                case "uniforme":
+                    resenas = rnd.nextInt(10_001);
+                    break;
+                default:
+                    resenas = (int) Math.min(50_000, Math.pow(1.0 - rnd.nextDouble(), -1 / 1.2) - 1);
+            }
+            tabla.agregar(nombre, rating, resenas);
+        }
+        return tabla;
+    }
+
+    // Yelp sintético en CSV (8 columnas, nombre en la 3) para calcularRatingPromedio
+    static Path csvYelp(Datos d) {
+        if (d.csvYelp != null)
+            return d.csvYelp;
+        try {
+            Path ruta = Files.createTempFile("yelp_sintetico", ".csv");
+            try (BufferedWriter w = new BufferedWriter(new FileWriter(ruta.toFile()))) {
+                w.write("Id,City,State,Organization,Address,Rating,NumberReview,Category\n");
+                RestauranteTable t = d.tabla;
+                for (int fila = 0; fila < t.size(); fila++) {
+                    w.write(fila + ",Phoenix,AZ," + t.nombre(fila) + ",Main St," + t.rating[fila] + ",\""
+                            + t.numeroResenas[fila] + "\",Food\n");
+                }
+            }
+            d.csvYelp = ruta;
+            return ruta;
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo generar el CSV sintético", e);
+        }
+    }
+
+    static void puntuar(RestauranteTable tabla) {
+        double C = tabla.sumaRatings / tabla.size();
+        for (int fila = 0; fila < tabla.size(); fila++) {
+            int v = tabla.numeroResenas[fila];
+            tabla.puntuacionTotal[fila] = (v / (v + m)) * tabla.rating[fila] + (m / (v + m)) * C;
+        }
+    }
+
+    // Copia independiente (misma tabla de nombres) para que cada motor ordene lo mismo
+    static RestauranteTable copiar(RestauranteTable base) {
+        int n = base.size();
+        RestauranteTable copia = RestauranteTable.desdeColumnas(n, base.numeroResenas.clone(), base.rating.clone(),
+                base.nombreId.clone(), base.cantidadNombres(), base.offsetsNombres(), base.bytesNombres(),
+                base.sumaRatings);
+        System.arraycopy(base.puntuacionTotal, 0, copia.puntuacionTotal, 0, n);
+        copia.reiniciarOrden();
+        return copia;
+    }
+
+    static ArrayList<Restaurante> aLista(RestauranteTable tabla) {
+        ArrayList<Restaurante> lista = new ArrayList<>(tabla.size());
+        String[] nombres = new String[tabla.cantidadNombres()];
+        for (int fila = 0; fila < tabla.size(); fila++) {
+            int id = tabla.nombreId[fila];
+            if (nombres[id] == null)
+                nombres[id] = tabla.nombreDiccionario(id);
+            Restaurante r = new Restaurante(nombres[id], tabla.rating[fila], tabla.numeroResenas[fila]);
+            r.puntuacionTotal = tabla.puntuacionTotal[fila];
+            lista.add(r);
+        }
+        return lista;
+    }
+
+    private static void guardar(List<Resultado> resultados, String archivo) throws IOException {
+        try (BufferedWriter w = new BufferedWriter(new FileWriter(archivo))) {
+            w.write("benchmark,distribucion,filas,ms_por_op,filas_por_seg,bytes_por_op,gc_conteo,gc_ms\n");
+            for (Resultado r : resultados) {
+                w.write(String.format("%s,%s,%d,%.4f,%.1f,%.1f,%d,%d\n", r.benchmark, r.distribucion, r.filas,
+                        r.msPorOp, r.filasPorSeg, r.bytesPorOp, r.gcConteo, r.gcMs));
+            }
+        }
+    }
+
+    // Devuelve true si algún benchmark empeoró más que la tolerancia respecto a la base
+    private static boolean compararConBase(List<Resultado> resultados, String archivoBase, double tolerancia)
+            throws IOException {
+        Map<String, Double> base = new HashMap<>();
+        List<String> lineas = Files.readAllLines(Paths.get(archivoBase));
+        for (int i = 1; i < lineas.size(); i++) {
+            String[] p = lineas.get(i).split(",");
+            base.put(p[0] + "|" + p[1] + "|" + p[2], Double.parseDouble(p[3]));
+        }
+        boolean regresion = false;
+        System.out.println("\n=== Comparación con " + archivoBase + " (tolerancia " + tolerancia + "%) ===");
+        for (Resultado r : resultados) {
+            Double anterior = base.get(r.clave());
+            if (anterior == null)
+                continue;
+            double cambio = (r.msPorOp - anterior) / anterior * 100.0;
+            boolean peor = cambio > tolerancia;
+            regresion |= peor;
+            System.out.printf("%-28s %-11s %10d %+8.1f%% %s\n", r.benchmark, r.distribucion, r.filas, cambio,
+                    peor ? "REGRESIÓN" : "ok");
+        }
+        return regresion;
+    }
+
+    private static Map<String, String> leerOpciones(String[] args) {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Argumento no reconocido: " + arg);
+            int igual = arg.indexOf('=');
+            opciones.put(arg.substring(2, igual), arg.substring(igual + 1));
+        }
+        return opciones;
+    }
+
+    private static int[] enteros(String lista) {
+        String[] partes = lista.split(",");
+        int[] valores = new int[partes.length];
+        for (int i = 0; i < partes.length; i++)
+            valores[i] = Integer.parseInt(partes[i].trim());
+        return valores;
+    }
+}
@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+
+/**
+ * Parámetros de ejecución de Ordenar y limpiarDatos a partir de la línea de
+ * comandos (--clave=valor).
+ *
+ * Sin --opcion el programa sigue siendo interactivo: cada valor que no vino
+ * por argumento se pregunta con el Scanner como antes. Con --opcion corre en
+ * modo por lotes (sin menú ni preguntas): los valores que faltan toman su
+ * valor por defecto, así se puede llamar desde scripts o cron.
+ *
+ * Con --entrada=ruta el archivo se lee directo del sistema de archivos (NIO)
+ * en lugar de buscarlo como recurso en el classpath.
+ */
+public class Configuracion {
+    private final Map<String, String> valores;
+    private final Scanner scanner;
+
+    private Configuracion(Map<String, String> valores, Scanner scanner) {
+        this.valores = valores;
+        this.scanner = scanner;
+    }
+
+    /**
+     * Lee argumentos --clave=valor (o --clave sola, que vale "true"). Lanza
+     * IllegalArgumentException si alguno no tiene ese formato o no está entre
+     * las claves válidas, para que un error de tipeo no pase desapercibido.
+     */
+    public static Configuracion desdeArgumentos(String[] args, Scanner scanner, String... clavesValidas) {
+        Set<String> validas = new HashSet<>(Arrays.asList(clavesValidas));
+        Map<String, String> valores = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.length() == 2)
+                throw new IllegalArgumentException("argumento no reconocido: " + arg);
+            int igual = arg.indexOf('=');
+            String clave = igual < 0 ? arg.substring(2) : arg.substring(2, igual);
+            String valor = igual < 0 ? "true" : arg.substring(igual + 1);
+            if (!validas.contains(clave))
+                throw new IllegalArgumentException("opción desconocida: --" + clave);
+            valores.put(clave, valor);
+        }
+        return new Configuracion(valores, scanner);
+    }
+
+    /**
+     * Modo interactivo: no se indicó --opcion en la línea de comandos.
+     */
+    public boolean interactivo() {
+        return !valores.containsKey("opcion");
+    }
+
+    public boolean tiene(String clave) {
+        return valores.containsKey(clave);
+    }
+
+    public String texto(String clave, String porDefecto) {
+        return valores.getOrDefault(clave, porDefecto);
+    }
+
+    /**
+     * Valor de --clave; si no vino, en modo interactivo se pregunta (si hay
+     * pregunta) y en modo por lotes se usa porDefecto.
+     */
+    public int entero(String clave, String pregunta, int porDefecto) {
+        String valor = valores.get(clave);
+        if (valor != null) {
+            try {
+                return Integer.parseInt(valor.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("--" + clave + " debe ser un entero: " + valor);
+            }
+        }
+        if (interactivo() && pregunta != null) {
+            System.out.print(pregunta);
+            return scanner.nextInt();
+        }
+        return porDefecto;
+    }
+
+    public long enteroLargo(String clave, String pregunta, long porDefecto) {
+        String valor = valores.get(clave);
+        if (valor != null) {
+            try {
+                return Long.parseLong(valor.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("--" + clave + " debe ser un entero: " + valor);
+            }
+        }
+        if (interactivo() && pregunta != null) {
+            System.out.print(pregunta);
+            return scanner.nextLong();
+        }
+        return porDefecto;
+    }
+
+    public double decimal(String clave, String pregunta, double porDefecto) {
+        String valor = valores.get(clave);
+        if (valor != null) {
+            try {
+                return Double.parseDouble(valor.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("--" + clave + " debe ser un número: " + valor);
+            }
+        }
+        if (interactivo() && pregunta != null) {
+            System.out.print(pregunta);
+            return scanner.nextDouble();
+        }
+        return porDefecto;
+    }
+
+    /**
+     * Como texto(), pero en modo interactivo pregunta si no vino. Devuelve
+     * null si en modo por lotes no hay valor ni porDefecto.
+     */
+    public String palabra(String clave, String pregunta, String porDefecto) {
+        String valor = valores.get(clave);
+        if (valor != null)
+            return valor;
+        if (interactivo() && pregunta != null) {
+            System.out.print(pregunta);
+            return scanner.next();
+        }
+        return porDefecto;
+    }
+
+    /**
+     * Ruta de --clave, o la del archivo por defecto en el directorio actual.
+     */
+    public Path ruta(String clave, String porDefecto) {
+        return Paths.get(valores.getOrDefault(clave, porDefecto));
+    }
+
+    /**
+     * Nombre de la entrada para los mensajes: la ruta de --entrada o el recurso.
+     */
+    public String nombreEntrada(String recursoPorDefecto) {
+        return valores.getOrDefault("entrada", recursoPorDefecto);
+    }
+
+    /**
+     * Archivo en disco de --entrada o, si no vino, el del recurso cuando el
+     * classpath es un directorio. Devuelve null si no hay un archivo (por
+     * ejemplo si el recurso está dentro de un jar).
+     */
+    public Path archivoEntrada(Class<?> clase, String recursoPorDefecto) {
+        String ruta = valores.get("entrada");
+        if (ruta != null)
+            return Files.isRegularFile(Paths.get(ruta)) ? Paths.get(ruta) : null;
+        URL url = clase.getResource("/" + recursoPorDefecto);
+        if (url == null || !"file".equals(url.getProtocol()))
+            return null;
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Abre --entrada desde el sistema de archivos o, si no vino, el recurso
+     * del classpath como hasta ahora. Devuelve null si no existe.
+     */
+    public InputStream abrirEntrada(Class<?> clase, String recursoPorDefecto) throws IOException {
+        String ruta = valores.get("entrada");
+        if (ruta == null)
+            return clase.getResourceAsStream("/" + recursoPorDefecto);
+        Path archivo = Paths.get(ruta);
+        return Files.isRegularFile(archivo) ? Files.newInputStream(archivo) : null;
+    }
+}
@@ -0,0 +1,330 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Escritor de CSV a nivel de bytes, pensado para reemplazar
+ * writer.write(String.format("%d,%s,%.2f,%d,%.4f\n", ...)) fila por fila.
+ *
+ *  - Los enteros y los decimales con precisión fija se formatean directo en
+ *    un buffer de bytes reutilizable: sin Formatter, sin Strings por campo.
+ *  - Los nombres se copian desde los bytes UTF-8 del diccionario de
+ *    RestauranteTable; solo se decodifican si tienen caracteres no ASCII.
+ *  - El buffer se vuelca en bloques grandes por un FileChannel. Con
+ *    'asincrono' un hilo escribe un bloque mientras se llena el siguiente.
+ *
+ * La salida es idéntica byte a byte a la de String.format con Locale.US y
+ * UTF-8: Formatter redondea HALF_UP sobre la representación decimal más
+ * corta del double (1.005 -> "1.01"), así que cuando el valor escalado queda
+ * a menos de MARGEN_EMPATE de un ...5 exacto se usa String.format para ese
+ * valor. Lo mismo con negativos, NaN, infinitos y valores muy grandes.
+ */
+public class EscritorCSV implements Closeable {
+    static final int TAM_BUFFER = 1 << 20;
+    // Buffers en circulación con el hilo de escritura (uno se llena, otro se escribe)
+    static final int BUFFERS_ASINCRONOS = 3;
+    // Distancia a x.5 por debajo de la cual el redondeo puede diferir de Formatter
+    static final double MARGEN_EMPATE = 1e-6;
+    // Hasta aquí el valor escalado tiene error menor a 2^-23, muy por debajo del margen
+    static final double MAX_ESCALADO = 1e9;
+    private static final double[] POTENCIAS = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9 };
+    // "00", "01", ... "99": se escriben dos dígitos por división
+    private static final byte[] PARES = new byte[200];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            PARES[2 * i] = (byte) ('0' + i / 10);
+            PARES[2 * i + 1] = (byte) ('0' + i % 10);
+        }
+    }
+
+    private final FileChannel canal;
+    private byte[] buffer = new byte[TAM_BUFFER];
+    private int usados;
+    private long bytesEscritos;
+    // Solo en modo asíncrono
+    private final BlockingQueue<Bloque> llenos;
+    private final BlockingQueue<byte[]> libres;
+    private final Thread escritor;
+    private volatile IOException errorEscritura;
+    // Valores que salieron por String.format (cerca de un empate)
+    long formatosLentos;
+
+    private static class Bloque {
+        final byte[] datos;
+        final int largo;
+
+        Bloque(byte[] datos, int largo) {
+            this.datos = datos;
+            this.largo = largo;
+        }
+    }
+
+    private static final Bloque FIN = new Bloque(new byte[0], -1);
+
+    public EscritorCSV(Path ruta) throws IOException {
+        this(ruta, false);
+    }
+
+    public EscritorCSV(Path ruta, boolean asincrono) throws IOException {
+        canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        if (!asincrono) {
+            llenos = null;
+            libres = null;
+            escritor = null;
+            return;
+        }
+        llenos = new ArrayBlockingQueue<>(BUFFERS_ASINCRONOS);
+        libres = new ArrayBlockingQueue<>(BUFFERS_ASINCRONOS);
+        for (int i = 1; i < BUFFERS_ASINCRONOS; i++)
+            libres.add(new byte[TAM_BUFFER]);
+        escritor = new Thread(this::escribirBloques, "EscritorCSV");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    // ===== Campos =====
+
+    /**
+     * Texto tal cual (sin comillas), en UTF-8.
+     */
+    public EscritorCSV texto(String s) throws IOException {
+        int n = s.length();
+        asegurar(n);
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                // El resto tiene caracteres de varios bytes: se codifica de una vez
+                byte[] b = s.substring(i).getBytes(StandardCharsets.UTF_8);
+                bytes(b, 0, b.length);
+                return this;
+            }
+            buffer[usados++] = (byte) c;
+        }
+        return this;
+    }
+
+    /**
+     * Campo de texto con el mismo criterio de comillas que LectorCSV.campoCSV.
+     */
+    public EscritorCSV campo(String s) throws IOException {
+        return texto(LectorCSV.campoCSV(s));
+    }
+
+    /**
+     * Campo a partir de bytes UTF-8 (por ejemplo el diccionario de nombres).
+     * Si no son ASCII se decodifican como lo hace RestauranteTable.nombre, así
+     * una secuencia inválida se escribe igual que antes (con U+FFFD).
+     */
+    public EscritorCSV campo(byte[] b, int inicio, int largo) throws IOException {
+        // Una sola pasada: no ASCII y caracteres que obligan a usar comillas (como necesitaComillas)
+        boolean comillas = false;
+        for (int i = inicio; i < inicio + largo; i++) {
+            byte c = b[i];
+            if (c < 0)
+                return campo(new String(b, inicio, largo, StandardCharsets.UTF_8));
+            if (c == ',' || c == '"' || c == '\n' || c == '\r')
+                comillas = true;
+        }
+        if (!comillas)
+            return bytes(b, inicio, largo);
+        asegurar(2 * largo + 2);
+        buffer[usados++] = '"';
+        for (int i = inicio; i < inicio + largo; i++) {
+            if (b[i] == '"')
+                buffer[usados++] = '"';
+            buffer[usados++] = b[i];
+        }
+        buffer[usados++] = '"';
+        return this;
+    }
+
+    public EscritorCSV bytes(byte[] b, int inicio, int largo) throws IOException {
+        asegurar(largo);
+        System.arraycopy(b, inicio, buffer, usados, largo);
+        usados += largo;
+        return this;
+    }
+
+    public EscritorCSV caracter(char c) throws IOException {
+        asegurar(1);
+        buffer[usados++] = (byte) c;
+        return this;
+    }
+
+    public EscritorCSV coma() throws IOException {
+        return caracter(',');
+    }
+
+    public EscritorCSV finLinea() throws IOException {
+        return caracter('\n');
+    }
+
+    /**
+     * Igual que %d.
+     */
+    public EscritorCSV entero(long v) throws IOException {
+        if (v >= 0 && v <= Integer.MAX_VALUE) {
+            // Caso común (posiciones, reseñas): aritmética de 32 bits
+            asegurar(10);
+            escribirDigitos((int) v, cantidadDigitos((int) v));
+            return this;
+        }
+        return texto(Long.toString(v));
+    }
+
+    /**
+     * Igual que %.Nf con N = 'decimales' (0 a 9).
+     */
+    public EscritorCSV decimal(double v, int decimales) throws IOException {
+        double escalado = v * POTENCIAS[decimales];
+        // !(escalado < MAX) también descarta NaN; el bit de signo descarta -0.0
+        if (!(escalado < MAX_ESCALADO) || Double.doubleToRawLongBits(v) < 0)
+            return decimalLento(v, decimales);
+        double piso = Math.floor(escalado);
+        double fraccion = escalado - piso;
+        if (Math.abs(fraccion - 0.5) < MARGEN_EMPATE)
+            return decimalLento(v, decimales);
+        // Cabe en int: escalado < 1e9
+        int redondeado = (int) piso + (fraccion > 0.5 ? 1 : 0);
+
+        // Todos los dígitos (al menos decimales + 1, con ceros a la izquierda) y
+        // después se abre lugar para el punto: sin dividir por 10^decimales
+        asegurar(11);
+        int digitos = Math.max(cantidadDigitos(redondeado), decimales + 1);
+        escribirDigitos(redondeado, digitos);
+        if (decimales > 0) {
+            int punto = usados - decimales;
+            System.arraycopy(buffer, punto, buffer, punto + 1, decimales);
+            buffer[punto] = '.';
+            usados++;
+        }
+        return this;
+    }
+
+    private EscritorCSV decimalLento(double v, int decimales) throws IOException {
+        formatosLentos++;
+        return texto(String.format(Locale.US, "%." + decimales + "f", v));
+    }
+
+    private static int cantidadDigitos(int v) {
+        int digitos = 1;
+        for (int limite = 10; digitos < 10 && v >= limite; limite *= 10)
+            digitos++;
+        return digitos;
+    }
+
+    // Escribe v >= 0 en exactamente 'digitos' posiciones (ceros a la izquierda), de atrás hacia adelante
+    private void escribirDigitos(int v, int digitos) {
+        int i = usados + digitos;
+        usados = i;
+        while (v >= 100) {
+            int q = v / 100;
+            int r = (v - q * 100) << 1;
+            v = q;
+            buffer[--i] = PARES[r + 1];
+            buffer[--i] = PARES[r];
+        }
+        if (v >= 10) {
+            buffer[--i] = PARES[(v << 1) + 1];
+            buffer[--i] = PARES[v << 1];
+        } else {
+            buffer[--i] = (byte) ('0' + v);
+        }
+        while (i > usados - digitos)
+            buffer[--i] = '0';
+    }
+
+    // ===== Volcado =====
+
+    public long bytesEscritos() {
+        return bytesEscritos + usados;
+    }
+
+    private void asegurar(int n) throws IOException {
+        if (usados + n > buffer.length)
+            volcar();
+        if (n > buffer.length)
+            buffer = new byte[n];
+    }
+
+    private void volcar() throws IOException {
+        if (usados == 0)
+            return;
+        bytesEscritos += usados;
+        if (escritor == null) {
+            escribir(buffer, 0, usados);
+            usados = 0;
+            return;
+        }
+        revisarError();
+        try {
+            llenos.put(new Bloque(buffer, usados));
+            buffer = libres.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrumpido escribiendo el CSV");
+        }
+        usados = 0;
+    }
+
+    private void escribir(byte[] b, int inicio, int largo) throws IOException {
+        ByteBuffer bb = ByteBuffer.wrap(b, inicio, largo);
+        while (bb.hasRemaining())
+            canal.write(bb);
+    }
+
+    // Hilo de escritura: vuelca los bloques en orden y devuelve cada buffer
+    private void escribirBloques() {
+        try {
+            while (true) {
+                Bloque bloque = llenos.take();
+                if (bloque == FIN)
+                    return;
+                if (errorEscritura == null) {
+                    try {
+                        escribir(bloque.datos, 0, bloque.largo);
+                    } catch (IOException e) {
+                        errorEscritura = e;
+                    }
+                }
+                libres.put(bloque.datos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void revisarError() throws IOException {
+        if (errorEscritura != null)
+            throw errorEscritura;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            volcar();
+            if (escritor != null) {
+                try {
+                    llenos.put(FIN);
+                    escritor.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrumpido cerrando el CSV");
+                }
+                revisarError();
+            }
+        } finally {
+            canal.close();
+        }
+    }
+}
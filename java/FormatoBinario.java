@@ -0,0 +1,138 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Formato binario intermedio entre la opción 1 y la opción 2 de Ordenar.
+ * Reemplaza al CSV intermedio: se escribe con FileChannel y se lee con un
+ * MappedByteBuffer copiando cada sección directo a los arreglos de la tabla,
+ * sin parsear texto.
+ *
+ * Estructura (little-endian, todas las secciones de ancho fijo salvo los bytes
+ * de los nombres):
+ *   cabecera (32 bytes): magia, versión, filas, nombres, sumaRatings, bytesNombres
+ *   rating          double[filas]
+ *   numeroResenas   int[filas]
+ *   nombreId        int[filas]
+ *   offsetsNombres  int[nombres + 1]   (sección de offsets de los strings)
+ *   bytesNombres    byte[bytesNombres] (UTF-8)
+ *
+ * Las filas se guardan en el orden actual de la tabla, así al cargarlas el
+ * orden es el mismo que tenía el CSV intermedio.
+ */
+public class FormatoBinario {
+    static final int MAGIA = 0x52535442; // "RSTB"
+    static final int VERSION = 1;
+    static final int TAM_CABECERA = 32;
+    private static final int TAM_BLOQUE = 1 << 20;
+
+    public static void escribir(RestauranteTable tabla, Path destino) throws IOException {
+        int filas = tabla.size();
+        int nombres = tabla.cantidadNombres();
+        int[] offsets = tabla.offsetsNombres();
+        int bytesNombres = offsets[nombres];
+
+        try (FileChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer bloque = ByteBuffer.allocateDirect(TAM_BLOQUE).order(ByteOrder.LITTLE_ENDIAN);
+
+            bloque.putInt(MAGIA).putInt(VERSION).putInt(filas).putInt(nombres);
+            bloque.putDouble(tabla.sumaRatings).putLong(bytesNombres);
+
+            for (int p = 0; p < filas; p++) {
+                asegurarEspacio(canal, bloque, 8);
+                bloque.putDouble(tabla.rating[tabla.filaEn(p)]);
+            }
+            for (int p = 0; p < filas; p++) {
+                asegurarEspacio(canal, bloque, 4);
+                bloque.putInt(tabla.numeroResenas[tabla.filaEn(p)]);
+            }
+            for (int p = 0; p < filas; p++) {
+                asegurarEspacio(canal, bloque, 4);
+                bloque.putInt(tabla.nombreId[tabla.filaEn(p)]);
+            }
+            for (int id = 0; id <= nombres; id++) {
+                asegurarEspacio(canal, bloque, 4);
+                bloque.putInt(offsets[id]);
+            }
+            byte[] bytes = tabla.bytesNombres();
+            int escritos = 0;
+            while (escritos < bytesNombres) {
+                asegurarEspacio(canal, bloque, 1);
+                int n = Math.min(bloque.remaining(), bytesNombres - escritos);
+                bloque.put(bytes, escritos, n);
+                escritos += n;
+            }
+            vaciar(canal, bloque);
+        }
+    }
+
+    /**
+     * Carga el archivo completo a una RestauranteTable mapeándolo en memoria.
+     */
+    public static RestauranteTable leer(Path origen) throws IOException {
+        try (FileChannel canal = FileChannel.open(origen, StandardOpenOption.READ)) {
+            long tamArchivo = canal.size();
+            if (tamArchivo < TAM_CABECERA)
+                throw new IOException("archivo binario incompleto: " + origen);
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamArchivo);
+            mapa.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (mapa.getInt() != MAGIA)
+                throw new IOException("no es un archivo binario de restaurantes: " + origen);
+            int version = mapa.getInt();
+            if (version != VERSION)
+                throw new IOException("versión de formato no soportada: " + version);
+            int filas = mapa.getInt();
+            int nombres = mapa.getInt();
+            double sumaRatings = mapa.getDouble();
+            int bytesNombres = (int) mapa.getLong();
+
+            long esperado = TAM_CABECERA + (long) filas * 16 + (long) (nombres + 1) * 4 + bytesNombres;
+            if (tamArchivo < esperado)
+                throw new IOException("archivo binario truncado: " + origen);
+
+            double[] rating = new double[filas];
+            int[] numeroResenas = new int[filas];
+            int[] nombreId = new int[filas];
+            int[] offsets = new int[nombres + 1];
+            byte[] bytes = new byte[bytesNombres];
+
+            // Cada sección se copia en bloque desde el mapa a su arreglo
+            int p = TAM_CABECERA;
+            mapa.position(p);
+            mapa.asDoubleBuffer().get(rating);
+            p += filas * 8;
+            mapa.position(p);
+            mapa.asIntBuffer().get(numeroResenas);
+            p += filas * 4;
+            mapa.position(p);
+            mapa.asIntBuffer().get(nombreId);
+            p += filas * 4;
+            mapa.position(p);
+            mapa.asIntBuffer().get(offsets);
+            p += (nombres + 1) * 4;
+            mapa.position(p);
+            mapa.get(bytes);
+
+            return RestauranteTable.desdeColumnas(filas, numeroResenas, rating, nombreId, nombres, offsets, bytes,
+                    sumaRatings);
+        }
+    }
+
+    private static void asegurarEspacio(FileChannel canal, ByteBuffer bloque, int bytes) throws IOException {
+        if (bloque.remaining() < bytes)
+            vaciar(canal, bloque);
+    }
+
+    private static void vaciar(FileChannel canal, ByteBuffer bloque) throws IOException {
+        bloque.flip();
+        while (bloque.hasRemaining())
+            canal.write(bloque);
+        bloque.clear();
+    }
+}
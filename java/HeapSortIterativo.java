@@ -0,0 +1,86 @@
+/**
+ * HeapSort iterativo y amigable con la caché.
+ * Diferencias con Ordenar.heapSort:
+ *  - copia las puntuaciones a un arreglo contiguo 'clave' paralelo a la
+ *    permutación, así las comparaciones no saltan a posiciones aleatorias
+ *    de puntuacionTotal;
+ *  - hundir es un bucle (no recursivo) que mueve un "hueco" hacia abajo en
+ *    lugar de hacer un intercambio por nivel: el elemento se escribe una sola
+ *    vez al final;
+ *  - el heap puede ser binario o 4-ario: con 4 hijos contiguos el árbol tiene
+ *    la mitad de niveles y los hijos suelen caer en la misma línea de caché;
+ *  - el progreso se publica en un contador que muestrea otro hilo (Progreso).
+ *
+ * El resultado es el mismo que el de heapSort: orden descendente por
+ * puntuacionTotal (se construye un min-heap y se extrae el menor al final).
+ */
+public class HeapSortIterativo {
+    // Cada cuántas extracciones se publica el progreso
+    private static final int MASCARA_PROGRESO = (1 << 14) - 1;
+
+    public static void ordenar(RestauranteTable tabla, int aridad, Progreso progreso) {
+        if (aridad < 2)
+            throw new IllegalArgumentException("la aridad del heap debe ser al menos 2");
+        int[] fila = tabla.orden == null ? tabla.reiniciarOrden() : tabla.orden;
+        int n = fila.length;
+        if (n < 2)
+            return;
+        double[] puntuacion = tabla.puntuacionTotal;
+        double[] clave = new double[n];
+        for (int p = 0; p < n; p++)
+            clave[p] = puntuacion[fila[p]];
+
+        // Construir el min-heap desde el último nodo con hijos
+        for (int i = (n - 2) / aridad; i >= 0; i--)
+            hundir(clave, fila, n, i, clave[i], fila[i], aridad);
+
+        // Extraer el menor al final de la sección en cada paso
+        for (int fin = n - 1; fin > 0; fin--) {
+            double x = clave[fin];
+            int f = fila[fin];
+            clave[fin] = clave[0];
+            fila[fin] = fila[0];
+            hundir(clave, fila, fin, 0, x, f, aridad);
+
+            if (progreso != null && (fin & MASCARA_PROGRESO) == 0)
+                progreso.actualizar(n - fin);
+        }
+    }
+
+    /**
+     * Coloca (x, f) empezando en el hueco 'i': mientras algún hijo sea menor,
+     * ese hijo sube al hueco y el hueco baja un nivel.
+     */
+    static void hundir(double[] clave, int[] fila, int n, int i, double x, int f, int aridad) {
+        int niveles = 0;
+        long comparaciones = 0;
+        while (true) {
+            int primerHijo = aridad * i + 1;
+            if (primerHijo >= n)
+                break;
+            int ultimoHijo = Math.min(primerHijo + aridad, n);
+            comparaciones += ultimoHijo - primerHijo; // entre hijos y contra x
+            int menor = primerHijo;
+            double valorMenor = clave[primerHijo];
+            for (int h = primerHijo + 1; h < ultimoHijo; h++) {
+                if (clave[h] < valorMenor) {
+                    menor = h;
+                    valorMenor = clave[h];
+                }
+            }
+            if (valorMenor >= x)
+                break;
+            clave[i] = valorMenor;
+            fila[i] = fila[menor];
+            i = menor;
+            niveles++;
+        }
+        clave[i] = x;
+        fila[i] = f;
+        if (Metricas.CONTAR) {
+            // Cada nivel que baja el hueco es un movimiento
+            Metricas.COMPARACIONES.add(comparaciones);
+            Metricas.INTERCAMBIOS.add(niveles);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Rankings filtrados por cantidad de reseñas y rating ("al menos 50 reseñas
+ * y rating >= 4") sin puntuar ni ordenar toda la tabla en cada consulta.
+ *
+ * Al construirlo se reparte cada fila en una cubeta de reseñas y una de
+ * rating, con un MapaBits por cubeta. Para cada dimensión además se guarda
+ * desde[b] = unión de las cubetas b..última (codificación por rangos): un
+ * mínimo es un solo mapa y un rango es una diferencia de dos.
+ *
+ * Una consulta:
+ *  1. Por dimensión, las cubetas que el filtro cubre enteras salen de
+ *     desde[]; solo las de los bordes (si el filtro las corta) se recorren
+ *     mirando la columna. Se guarda el menor y el mayor valor de cada
+ *     cubeta, así con ratings de medio punto ningún filtro de rating corta
+ *     una cubeta.
+ *  2. Intersección de las dos dimensiones.
+ *  3. Top-K con un heap acotado sobre las filas que quedaron, o el ranking
+ *     filtrado completo ordenando solo esas filas (RadixSort, estable). Si
+ *     el filtro deja pasar muchas filas, el top-K recorre el ranking global
+ *     (precalculado) hasta juntar K: se esperan K * n / filas pasos.
+ *
+ * La tabla debe venir puntuada: el ranking filtrado es el ranking global
+ * restringido a las filas que pasan el filtro (mismo C, a igual puntuación
+ * la fila anterior primero).
+ */
+public class IndiceFacetas {
+    // Límite inferior de cada cubeta de reseñas (la primera junta todo lo menor que 1)
+    static final double[] LIMITES_RESENAS = { Double.NEGATIVE_INFINITY, 1, 5, 10, 20, 50, 100, 200, 500, 1000,
+            2000, 5000, 10000 };
+    // Medio punto por cubeta: los ratings de Yelp van de 1 a 5 en medios puntos
+    static final double[] LIMITES_RATING = { Double.NEGATIVE_INFINITY, 1.0, 1.5, 2.0, 2.5, 3.0, 3.5, 4.0, 4.5,
+            5.0 };
+
+    private final RestauranteTable tabla;
+    // Todas las filas ordenadas por puntuación (estable), para los filtros poco selectivos
+    private final int[] ordenGlobal;
+    private final Dimension resenas;
+    private final Dimension rating;
+
+    // Mapas de una columna: cubetas, uniones desde cada cubeta y rango de valores de cada una
+    private static final class Dimension {
+        final double[] limites;
+        final IntToDoubleFunction columna;
+        final MapaBits[] cubeta;
+        final MapaBits[] desde;
+        final double[] minimo;
+        final double[] maximo;
+
+        Dimension(double[] limites, IntToDoubleFunction columna) {
+            this.limites = limites;
+            this.columna = columna;
+            int cubetas = limites.length;
+            cubeta = new MapaBits[cubetas];
+            desde = new MapaBits[cubetas];
+            minimo = new double[cubetas];
+            maximo = new double[cubetas];
+            for (int b = 0; b < cubetas; b++)
+                cubeta[b] = new MapaBits();
+            Arrays.fill(minimo, Double.POSITIVE_INFINITY);
+            Arrays.fill(maximo, Double.NEGATIVE_INFINITY);
+        }
+
+        int cubetaDe(double v) {
+            int i = Arrays.binarySearch(limites, v);
+            return i >= 0 ? i : -i - 2;
+        }
+
+        void agregar(int fila) {
+            double v = columna.applyAsDouble(fila);
+            int b = cubetaDe(v);
+            cubeta[b].agregar(fila);
+            if (v < minimo[b])
+                minimo[b] = v;
+            if (v > maximo[b])
+                maximo[b] = v;
+        }
+
+        void cerrar() {
+            int ultima = cubeta.length - 1;
+            desde[ultima] = cubeta[ultima];
+            for (int b = ultima - 1; b >= 0; b--)
+                desde[b] = desde[b + 1].o(cubeta[b]);
+        }
+
+        // Filas con lo <= valor <= hi
+        MapaBits filtrar(double lo, double hi) {
+            if (!(lo <= hi))
+                return new MapaBits();
+            int bLo = cubetaDe(lo);
+            int bHi = cubetaDe(hi);
+            boolean enteraInicio = lo <= minimo[bLo];
+            boolean enteraFin = hi >= maximo[bHi];
+            if (bLo == bHi)
+                return enteraInicio && enteraFin ? cubeta[bLo] : refinar(cubeta[bLo], lo, hi);
+            MapaBits r = entre(enteraInicio ? bLo : bLo + 1, enteraFin ? bHi + 1 : bHi);
+            if (!enteraInicio)
+                r = r.o(refinar(cubeta[bLo], lo, hi));
+            if (!enteraFin)
+                r = r.o(refinar(cubeta[bHi], lo, hi));
+            return r;
+        }
+
+        // Unión de las cubetas [a, b)
+        private MapaBits entre(int a, int b) {
+            if (a >= b)
+                return new MapaBits();
+            return b == cubeta.length ? desde[a] : desde[a].menos(desde[b]);
+        }
+
+        // Cubeta de borde: se mira el valor de cada fila
+        private MapaBits refinar(MapaBits filas, double lo, double hi) {
+            MapaBits r = new MapaBits();
+            for (int fila : filas.aArreglo()) {
+                double v = columna.applyAsDouble(fila);
+                if (v >= lo && v <= hi)
+                    r.agregar(fila);
+            }
+            return r;
+        }
+
+        long bytesEnMemoria() {
+            long total = 0;
+            for (int b = 0; b < cubeta.length; b++) {
+                total += cubeta[b].bytesEnMemoria();
+                if (desde[b] != cubeta[b])
+                    total += desde[b].bytesEnMemoria();
+            }
+            return total;
+        }
+    }
+
+    private IndiceFacetas(RestauranteTable tabla) {
+        this.tabla = tabla;
+        ordenGlobal = new int[tabla.size()];
+        resenas = new Dimension(LIMITES_RESENAS, fila -> tabla.numeroResenas[fila]);
+        rating = new Dimension(LIMITES_RATING, fila -> tabla.rating[fila]);
+    }
+
+    /**
+     * Arma los índices en una pasada por las filas (en orden, así cada
+     * MapaBits se llena agregando al final).
+     */
+    public static IndiceFacetas construir(RestauranteTable tabla) {
+        IndiceFacetas indice = new IndiceFacetas(tabla);
+        for (int fila = 0; fila < tabla.size(); fila++) {
+            indice.resenas.agregar(fila);
+            indice.rating.agregar(fila);
+        }
+        indice.resenas.cerrar();
+        indice.rating.cerrar();
+        for (int fila = 0; fila < tabla.size(); fila++)
+            indice.ordenGlobal[fila] = fila;
+        RadixSort.ordenarPorPuntuacion(tabla.puntuacionTotal, indice.ordenGlobal);
+        return indice;
+    }
+
+    /**
+     * Filas con minResenas <= reseñas <= maxResenas y minRating <= rating <=
+     * maxRating (todos los extremos incluidos). Una dimensión sin límites
+     * (Integer.MIN_VALUE/MAX_VALUE, infinitos) no se consulta.
+     */
+    public MapaBits filtrar(int minResenas, int maxResenas, double minRating, double maxRating) {
+        MapaBits r = null;
+        if (minResenas > Integer.MIN_VALUE || maxResenas < Integer.MAX_VALUE)
+            r = resenas.filtrar(minResenas, maxResenas);
+        if (minRating > Double.NEGATIVE_INFINITY || maxRating < Double.POSITIVE_INFINITY) {
+            MapaBits porRating = rating.filtrar(minRating, maxRating);
+            r = r == null ? porRating : r.y(porRating);
+        }
+        return r == null ? resenas.desde[0] : r;
+    }
+
+    /**
+     * Ranking filtrado completo: solo se ordenan las filas de 'filas'.
+     */
+    public int[] ranking(MapaBits filas) {
+        int[] orden = filas.aArreglo();
+        RadixSort.ordenarPorPuntuacion(tabla.puntuacionTotal, orden);
+        return orden;
+    }
+
+    /**
+     * Las K mejores de 'filas', de mayor a menor puntuación: las primeras K
+     * de ranking(filas), con un heap de K en lugar de ordenar todo.
+     */
+    public int[] top(MapaBits filas, int k) {
+        int cantidad = filas.cardinalidad();
+        k = Math.min(k, cantidad);
+        if (k <= 0)
+            return new int[0];
+        if ((long) k * ordenGlobal.length / cantidad < cantidad) {
+            // Filtro poco selectivo: las primeras K del ranking global que pasan el filtro
+            int[] resultado = new int[k];
+            for (int p = 0, n = 0; n < k; p++) {
+                if (filas.contiene(ordenGlobal[p]))
+                    resultado[n++] = ordenGlobal[p];
+            }
+            return resultado;
+        }
+        int[] candidatas = filas.aArreglo();
+        double[] puntuacion = tabla.puntuacionTotal;
+        // Min-heap: en la raíz la peor de las K (menor puntuación; a igualdad, la fila posterior)
+        int[] heap = new int[k];
+        int tam = 0;
+        for (int fila : candidatas) {
+            if (tam < k) {
+                heap[tam] = fila;
+                subir(heap, tam++, puntuacion);
+            } else if (puntuacion[fila] > puntuacion[heap[0]]) {
+                // Las candidatas vienen en orden de fila: con igual puntuación la que ya está gana
+                heap[0] = fila;
+                hundir(heap, 0, k, puntuacion);
+            }
+        }
+        // Vaciar el heap de peor a mejor llenando el resultado desde el final
+        int[] resultado = new int[k];
+        for (int i = k - 1; i >= 0; i--) {
+            resultado[i] = heap[0];
+            heap[0] = heap[i];
+            hundir(heap, 0, i, puntuacion);
+        }
+        return resultado;
+    }
+
+    // a va después que b en el ranking
+    private static boolean peor(int a, int b, double[] puntuacion) {
+        return puntuacion[a] < puntuacion[b] || (puntuacion[a] == puntuacion[b] && a > b);
+    }
+
+    private static void subir(int[] heap, int pos, double[] puntuacion) {
+        while (pos > 0) {
+            int padre = (pos - 1) / 2;
+            if (!peor(heap[pos], heap[padre], puntuacion))
+                break;
+            int t = heap[pos];
+            heap[pos] = heap[padre];
+            heap[padre] = t;
+            pos = padre;
+        }
+    }
+
+    private static void hundir(int[] heap, int pos, int tam, double[] puntuacion) {
+        while (true) {
+            int hijo = 2 * pos + 1;
+            if (hijo >= tam)
+                break;
+            if (hijo + 1 < tam && peor(heap[hijo + 1], heap[hijo], puntuacion))
+                hijo++;
+            if (!peor(heap[hijo], heap[pos], puntuacion))
+                break;
+            int t = heap[pos];
+            heap[pos] = heap[hijo];
+            heap[hijo] = t;
+            pos = hijo;
+        }
+    }
+
+    public long bytesEnMemoria() {
+        return resenas.bytesEnMemoria() + rating.bytesEnMemoria() + (long) ordenGlobal.length * 4;
+    }
+}
@@ -0,0 +1,312 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga en pipeline para la opción 1: lectura, parseo y ordenamiento al mismo
+ * tiempo en lugar de una fase detrás de otra.
+ *
+ *  lector (1 hilo) --bloques de bytes--> cola acotada --> parsers (N hilos)
+ *      cada parser convierte su bloque en un lote (RestauranteTable chica)
+ *      y lo ordena por reseñas con QuickSort3Vias
+ *  al final: mezcla de k vías de los lotes ya ordenados
+ *
+ * Mientras el lector espera al disco los parsers trabajan con los bloques
+ * anteriores, y la fase de ordenamiento se reduce a mezclar lotes ordenados.
+ * Los bloques se cortan en un salto de línea que no esté dentro de comillas,
+ * así ninguna fila queda partida entre dos bloques.
+ *
+ * La mezcla no copia filas una por una: las columnas de los lotes se
+ * concatenan en el orden del archivo (cada nombre distinto de un lote se
+ * busca una sola vez en el diccionario global) y la mezcla solo arma la
+ * permutación 'orden'.
+ */
+public class IngestaPipeline {
+    static final int TAM_BLOQUE = 4 << 20;
+
+    // Bloque de bytes leído del archivo (solo filas completas)
+    private static class Bloque {
+        final int secuencia;
+        final byte[] datos;
+        final int largo;
+
+        Bloque(int secuencia, byte[] datos, int largo) {
+            this.secuencia = secuencia;
+            this.datos = datos;
+            this.largo = largo;
+        }
+    }
+
+    // Lote parseado y ordenado; la secuencia desempata en la mezcla
+    private static class Lote {
+        final int secuencia;
+        final RestauranteTable tabla;
+        final long malformadas;
+
+        Lote(int secuencia, RestauranteTable tabla, long malformadas) {
+            this.secuencia = secuencia;
+            this.tabla = tabla;
+            this.malformadas = malformadas;
+        }
+    }
+
+    private static final Bloque FIN = new Bloque(-1, new byte[0], 0);
+
+    /**
+     * Lee un CSV Organization,Rating,NumberReview (con cabecera) y devuelve la
+     * tabla ya ordenada por número de reseñas de mayor a menor.
+     */
+    public static RestauranteTable cargarOrdenado(InputStream entrada, int hilos)
+            throws IOException, InterruptedException {
+        BlockingQueue<Bloque> cola = new ArrayBlockingQueue<>(hilos * 2);
+        ExecutorService parsers = Executors.newFixedThreadPool(hilos, r -> {
+            Thread t = new Thread(r, "parser-csv");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<List<Lote>>> trabajos = new ArrayList<>();
+        for (int i = 0; i < hilos; i++)
+            trabajos.add(parsers.submit(() -> parsear(cola)));
+
+        try {
+            // El hilo que llama hace de lector
+            long bytesLeidos = leerBloques(entrada, cola, trabajos);
+            for (int i = 0; i < hilos; i++)
+                entregar(cola, FIN, trabajos);
+
+            List<Lote> lotes = new ArrayList<>();
+            for (Future<List<Lote>> trabajo : trabajos)
+                lotes.addAll(trabajo.get());
+            trabajos.clear(); // así cada lote se libera apenas se copia
+            lotes.sort((a, b) -> Integer.compare(a.secuencia, b.secuencia));
+            long malformadas = 0;
+            for (Lote lote : lotes)
+                malformadas += lote.malformadas;
+            RestauranteTable tabla = mezclar(lotes);
+            // Mismos contadores que Ordenar.cargarTabla
+            Metricas.contar("bytesLeidos", bytesLeidos);
+            Metricas.contar("filasLeidas", tabla.size());
+            Metricas.contar("filasMalformadas", malformadas);
+            return tabla;
+        } catch (ExecutionException e) {
+            throw new IOException("Error parseando un bloque: " + e.getCause(), e.getCause());
+        } finally {
+            parsers.shutdownNow();
+        }
+    }
+
+    // Devuelve los bytes leídos de la entrada (con la cabecera)
+    private static long leerBloques(InputStream entrada, BlockingQueue<Bloque> cola,
+            List<Future<List<Lote>>> trabajos) throws IOException, InterruptedException, ExecutionException {
+        byte[] actual = new byte[TAM_BLOQUE];
+        long total = 0;
+        int usados = 0;
+        int secuencia = 0;
+        boolean cabecera = true;
+        try (InputStream in = entrada) {
+            while (true) {
+                int leidos = in.read(actual, usados, actual.length - usados);
+                if (leidos < 0)
+                    break;
+                usados += leidos;
+                total += leidos;
+                if (usados < actual.length)
+                    continue;
+
+                int corte = ultimoCorte(actual, usados);
+                if (corte < 0) {
+                    // Una sola línea más grande que el bloque: se agranda
+                    actual = Arrays.copyOf(actual, actual.length * 2);
+                    continue;
+                }
+                byte[] siguiente = new byte[Math.max(TAM_BLOQUE, actual.length)];
+                int resto = usados - corte;
+                System.arraycopy(actual, corte, siguiente, 0, resto);
+                int inicio = cabecera ? saltarCabecera(actual, corte) : 0;
+                cabecera = false;
+                entregar(cola, new Bloque(secuencia++, recortar(actual, inicio, corte), corte - inicio), trabajos);
+                actual = siguiente;
+                usados = resto;
+            }
+        }
+        if (usados > 0) {
+            int inicio = cabecera ? saltarCabecera(actual, usados) : 0;
+            entregar(cola, new Bloque(secuencia, recortar(actual, inicio, usados), usados - inicio), trabajos);
+        }
+        return total;
+    }
+
+    /**
+     * Pone un bloque en la cola. Si la cola está llena y algún parser terminó
+     * antes de tiempo (por un error), se propaga el error en lugar de esperar
+     * para siempre.
+     */
+    private static void entregar(BlockingQueue<Bloque> cola, Bloque bloque, List<Future<List<Lote>>> trabajos)
+            throws InterruptedException, ExecutionException {
+        while (!cola.offer(bloque, 100, TimeUnit.MILLISECONDS)) {
+            for (Future<List<Lote>> trabajo : trabajos) {
+                if (trabajo.isDone())
+                    trabajo.get(); // lanza la excepción del parser
+            }
+        }
+    }
+
+    private static byte[] recortar(byte[] datos, int inicio, int fin) {
+        return inicio == 0 ? datos : Arrays.copyOfRange(datos, inicio, fin);
+    }
+
+    private static int saltarCabecera(byte[] datos, int largo) {
+        for (int i = 0; i < largo; i++) {
+            if (datos[i] == '\n')
+                return i + 1;
+        }
+        return largo;
+    }
+
+    /**
+     * Posición justo después del último salto de línea que no está dentro de
+     * comillas, o -1 si no hay ninguno.
+     */
+    private static int ultimoCorte(byte[] datos, int largo) {
+        boolean dentroComillas = false;
+        int corte = -1;
+        for (int i = 0; i < largo; i++) {
+            byte c = datos[i];
+            if (c == '"')
+                dentroComillas = !dentroComillas;
+            else if (c == '\n' && !dentroComillas)
+                corte = i + 1;
+        }
+        return corte;
+    }
+
+    // Trabajo de cada parser: toma bloques hasta recibir FIN
+    private static List<Lote> parsear(BlockingQueue<Bloque> cola) throws IOException, InterruptedException {
+        List<Lote> lotes = new ArrayList<>();
+        while (true) {
+            Bloque bloque = cola.take();
+            if (bloque == FIN)
+                return lotes;
+            RestauranteTable tabla = new RestauranteTable(bloque.largo / 24);
+            long malformadas = 0;
+            try (LectorCSV lector = new LectorCSV(new ByteArrayInputStream(bloque.datos, 0, bloque.largo), 3)) {
+                while (lector.siguienteLinea()) {
+                    try {
+                        double rating = lector.decimal(1);
+                        int numeroResenas = lector.entero(2);
+                        lector.quitarComillas(0);
+                        tabla.agregar(lector.buffer(), lector.inicio(0), lector.largo(0), rating, numeroResenas);
+                    } catch (NumberFormatException e) {
+                        // Ignorar líneas mal formadas (solo se cuentan para el reporte)
+                        malformadas++;
+                    }
+                }
+            }
+            // Cada lote se ordena apenas se parsea (en paralelo con los demás)
+            QuickSort3Vias.ordenarPorResenas(tabla);
+            lotes.add(new Lote(bloque.secuencia, tabla, malformadas));
+        }
+    }
+
+    /**
+     * Arma la tabla final con las filas en el orden del archivo y 'orden' con
+     * la mezcla de k vías de los lotes: un heap de cursores donde en cada paso
+     * sale la fila con más reseñas entre las cabezas de todos los lotes (a
+     * igualdad, la del lote más temprano del archivo).
+     */
+    private static RestauranteTable mezclar(List<Lote> lotes) {
+        int k = lotes.size();
+        int total = 0;
+        for (Lote lote : lotes)
+            total += lote.tabla.size();
+
+        // 1. Columnas concatenadas; el diccionario queda en orden de primera aparición, como en cargarTabla
+        int[] resenas = new int[total];
+        double[] rating = new double[total];
+        int[] nombreId = new int[total];
+        RestauranteTable diccionario = new RestauranteTable(Math.max(16, total / 4));
+        int[] base = new int[k + 1];
+        int[][] ordenLote = new int[k][];
+        for (int l = 0; l < k; l++) {
+            RestauranteTable t = lotes.get(l).tabla;
+            int n = t.size();
+            int[] mapa = new int[t.cantidadNombres()];
+            byte[] nombres = t.bytesNombres();
+            for (int id = 0; id < mapa.length; id++)
+                mapa[id] = diccionario.idNombre(nombres, t.inicioNombre(id), t.largoNombre(id));
+            System.arraycopy(t.numeroResenas, 0, resenas, base[l], n);
+            System.arraycopy(t.rating, 0, rating, base[l], n);
+            for (int f = 0; f < n; f++)
+                nombreId[base[l] + f] = mapa[t.nombreId[f]];
+            base[l + 1] = base[l] + n;
+            ordenLote[l] = t.orden;
+            lotes.set(l, null); // del lote solo queda su permutación
+        }
+        // Misma suma, en el mismo orden, que la carga fila por fila
+        double sumaRatings = 0.0;
+        for (int f = 0; f < total; f++)
+            sumaRatings += rating[f];
+        RestauranteTable resultado = RestauranteTable.desdeColumnas(total, resenas, rating, nombreId,
+                diccionario.cantidadNombres(), diccionario.offsetsNombres(), diccionario.bytesNombres(), sumaRatings);
+
+        // 2. Mezcla: solo escribe índices de fila en la permutación
+        int[] orden = new int[total];
+        int[] cursor = new int[k];
+        int[] heap = new int[k];
+        int tam = 0;
+        for (int l = 0; l < k; l++) {
+            if (base[l + 1] > base[l])
+                heap[tam++] = l;
+        }
+        for (int i = tam / 2 - 1; i >= 0; i--)
+            hundir(heap, tam, i, resenas, base, ordenLote, cursor);
+
+        int p = 0;
+        while (tam > 0) {
+            int l = heap[0];
+            orden[p++] = base[l] + ordenLote[l][cursor[l]];
+            cursor[l]++;
+            if (cursor[l] == ordenLote[l].length)
+                heap[0] = heap[--tam];
+            hundir(heap, tam, 0, resenas, base, ordenLote, cursor);
+        }
+        resultado.orden = orden;
+        return resultado;
+    }
+
+    // true si la cabeza del lote a va antes que la del lote b
+    private static boolean antes(int a, int b, int[] resenas, int[] base, int[][] ordenLote, int[] cursor) {
+        int va = resenas[base[a] + ordenLote[a][cursor[a]]];
+        int vb = resenas[base[b] + ordenLote[b][cursor[b]]];
+        return va > vb || (va == vb && a < b);
+    }
+
+    private static void hundir(int[] heap, int tam, int i, int[] resenas, int[] base, int[][] ordenLote,
+            int[] cursor) {
+        while (true) {
+            int mejor = i;
+            int izq = 2 * i + 1;
+            int der = izq + 1;
+            if (izq < tam && antes(heap[izq], heap[mejor], resenas, base, ordenLote, cursor))
+                mejor = izq;
+            if (der < tam && antes(heap[der], heap[mejor], resenas, base, ordenLote, cursor))
+                mejor = der;
+            if (mejor == i)
+                return;
+            int tmp = heap[i];
+            heap[i] = heap[mejor];
+            heap[mejor] = tmp;
+            i = mejor;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * Textos JSON para las respuestas de ServidorRanking y el reporte de
+ * Metricas, que arman el JSON a mano sin una biblioteca.
+ */
+public class Json {
+    // Cadena entre comillas con comillas, barras y caracteres de control escapados
+    static String texto(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\')
+                sb.append('\\').append(c);
+            else if (c < 0x20)
+                sb.append(String.format("\\u%04x", (int) c));
+            else
+                sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Núcleo de la fórmula bayesiana sobre las columnas primitivas de la tabla.
+ *
+ *  - El bucle de puntuar es un recorrido plano de int[]/double[] sin objetos
+ *    ni saltos: el JIT (C2) lo vectoriza solo con instrucciones SIMD.
+ *  - El trabajo se reparte en bloques de tamaño fijo con un parallel stream.
+ *  - C se suma con Kahan (suma compensada) por bloque y los parciales se
+ *    combinan siempre en el mismo orden: como los bloques no dependen de la
+ *    cantidad de hilos, el resultado es idéntico en cualquier máquina.
+ *  - Con un solo bloque o un solo hilo los bloques se recorren en un bucle
+ *    simple: el parallel stream solo agrega costo y el resultado es el mismo.
+ */
+public class KernelPuntuacion {
+    // Tamaño fijo de bloque: define el orden de la suma, no debe depender de los hilos
+    static final int TAM_BLOQUE = 1 << 16;
+
+    /**
+     * Promedio de los primeros n ratings con suma compensada (Kahan).
+     */
+    public static double promedio(double[] rating, int n) {
+        if (n == 0)
+            return 0.0;
+        int bloques = (n + TAM_BLOQUE - 1) / TAM_BLOQUE;
+        double[] suma = new double[bloques];
+        double[] compensacion = new double[bloques];
+        if (enParalelo(bloques)) {
+            IntStream.range(0, bloques).parallel().forEach(b -> sumarBloque(rating, b * TAM_BLOQUE,
+                    Math.min(n, b * TAM_BLOQUE + TAM_BLOQUE), suma, compensacion, b));
+        } else {
+            for (int b = 0; b < bloques; b++)
+                sumarBloque(rating, b * TAM_BLOQUE, Math.min(n, b * TAM_BLOQUE + TAM_BLOQUE), suma, compensacion, b);
+        }
+
+        // Los parciales se combinan en orden de bloque, también compensados
+        double s = 0.0;
+        double c = 0.0;
+        for (int b = 0; b < bloques; b++) {
+            double y = (suma[b] - compensacion[b]) - c;
+            double t = s + y;
+            c = (t - s) - y;
+            s = t;
+        }
+        return s / n;
+    }
+
+    /**
+     * Sumas compensadas (las mismas que usa promedio) de 'cantidad' bloques
+     * completos seguidos desde rating[desde], para combinarlas en otro lado con
+     * PromedioPorBloques.agregarBloque.
+     */
+    public static void sumarBloques(double[] rating, int desde, int cantidad, double[] suma, double[] compensacion) {
+        if (enParalelo(cantidad)) {
+            IntStream.range(0, cantidad).parallel().forEach(b -> sumarBloque(rating, desde + b * TAM_BLOQUE,
+                    desde + (b + 1) * TAM_BLOQUE, suma, compensacion, b));
+        } else {
+            for (int b = 0; b < cantidad; b++)
+                sumarBloque(rating, desde + b * TAM_BLOQUE, desde + (b + 1) * TAM_BLOQUE, suma, compensacion, b);
+        }
+    }
+
+    // Vale la pena repartir: más de un bloque y más de un hilo en el pool común
+    private static boolean enParalelo(int bloques) {
+        return bloques > 1 && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    // Suma compensada de rating[inicio, fin); deja la suma y su compensación en la posición b
+    private static void sumarBloque(double[] rating, int inicio, int fin, double[] suma, double[] compensacion,
+            int b) {
+        // Cuatro acumuladores independientes: rompen la cadena de dependencias
+        // de Kahan para que el procesador solape las sumas
+        double s0 = 0.0, s1 = 0.0, s2 = 0.0, s3 = 0.0;
+        double c0 = 0.0, c1 = 0.0, c2 = 0.0, c3 = 0.0;
+        int i = inicio;
+        for (; i + 3 < fin; i += 4) {
+            double y0 = rating[i] - c0, t0 = s0 + y0;
+            double y1 = rating[i + 1] - c1, t1 = s1 + y1;
+            double y2 = rating[i + 2] - c2, t2 = s2 + y2;
+            double y3 = rating[i + 3] - c3, t3 = s3 + y3;
+            c0 = (t0 - s0) - y0;
+            c1 = (t1 - s1) - y1;
+            c2 = (t2 - s2) - y2;
+            c3 = (t3 - s3) - y3;
+            s0 = t0;
+            s1 = t1;
+            s2 = t2;
+            s3 = t3;
+        }
+        for (; i < fin; i++) {
+            double y = rating[i] - c0, t = s0 + y;
+            c0 = (t - s0) - y;
+            s0 = t;
+        }
+        // Combinar los carriles, también con compensación
+        double s = 0.0, c = 0.0;
+        double[] carriles = { s0 - c0, s1 - c1, s2 - c2, s3 - c3 };
+        for (double x : carriles) {
+            double y = x - c, t = s + y;
+            c = (t - s) - y;
+            s = t;
+        }
+        suma[b] = s;
+        compensacion[b] = c;
+    }
+
+    /**
+     * El mismo promedio que promedio(double[], n), pero recibiendo los ratings
+     * de a uno y en orden (por ejemplo leídos de varios archivos, sin tenerlos
+     * todos en memoria). Usa los mismos bloques, carriles y orden de
+     * combinación, así que el resultado es idéntico bit a bit.
+     */
+    public static class PromedioPorBloques {
+        private final double[] bloque = new double[TAM_BLOQUE];
+        private final double[] suma = new double[1];
+        private final double[] compensacion = new double[1];
+        private int usados;
+        private long n;
+        private double s;
+        private double c;
+
+        public void agregar(double rating) {
+            bloque[usados++] = rating;
+            n++;
+            if (usados == TAM_BLOQUE)
+                cerrarBloque();
+        }
+
+        /**
+         * Agrega un bloque completo ya sumado (por sumarBloques, por ejemplo en
+         * otro proceso). Solo vale en un límite de bloque: la cantidad de
+         * ratings agregados hasta aquí debe ser múltiplo de TAM_BLOQUE.
+         */
+        public void agregarBloque(double sumaBloque, double compensacionBloque) {
+            if (usados != 0)
+                throw new IllegalStateException("bloque agregado a mitad de un bloque (" + n + " ratings)");
+            combinar(sumaBloque, compensacionBloque);
+            n += TAM_BLOQUE;
+        }
+
+        private void cerrarBloque() {
+            sumarBloque(bloque, 0, usados, suma, compensacion, 0);
+            combinar(suma[0], compensacion[0]);
+            usados = 0;
+        }
+
+        private void combinar(double sumaBloque, double compensacionBloque) {
+            double y = (sumaBloque - compensacionBloque) - c;
+            double t = s + y;
+            c = (t - s) - y;
+            s = t;
+        }
+
+        public long cantidad() {
+            return n;
+        }
+
+        // Cierra el último bloque: llamar una sola vez, al final
+        public double promedio() {
+            if (usados > 0)
+                cerrarBloque();
+            return n == 0 ? 0.0 : s / n;
+        }
+    }
+
+    public static double promedio(RestauranteTable tabla) {
+        return promedio(tabla.rating, tabla.size());
+    }
+
+    /**
+     * puntuacion[i] = (v / (v + m)) * R + (m / (v + m)) * C para las primeras n
+     * filas. Misma expresión que Ordenar, así los resultados son idénticos bit
+     * a bit a los del bucle original.
+     */
+    public static void puntuar(int[] resenas, double[] rating, double[] puntuacion, int n, double m, double C) {
+        int bloques = (n + TAM_BLOQUE - 1) / TAM_BLOQUE;
+        if (!enParalelo(bloques)) {
+            puntuarRango(resenas, rating, puntuacion, 0, n, m, C);
+            return;
+        }
+        IntStream.range(0, bloques).parallel().forEach(b -> {
+            int inicio = b * TAM_BLOQUE;
+            puntuarRango(resenas, rating, puntuacion, inicio, Math.min(n, inicio + TAM_BLOQUE), m, C);
+        });
+    }
+
+    /**
+     * Calcula C con promedio() y puntúa toda la tabla. Devuelve el C usado.
+     */
+    public static double puntuar(RestauranteTable tabla, double m) {
+        double C = promedio(tabla);
+        puntuar(tabla.numeroResenas, tabla.rating, tabla.puntuacionTotal, tabla.size(), m, C);
+        return C;
+    }
+
+    // Bucle sin ramas ni llamadas: candidato directo a la vectorización de C2
+    private static void puntuarRango(int[] resenas, double[] rating, double[] puntuacion, int inicio, int fin,
+            double m, double C) {
+        for (int i = inicio; i < fin; i++) {
+            double v = resenas[i];
+            puntuacion[i] = (v / (v + m)) * rating[i] + (m / (v + m)) * C;
+        }
+    }
+}
@@ -0,0 +1,336 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Lector CSV por streaming sobre un buffer de bytes reutilizable.
+ * A diferencia de readLine() + split(","), no crea Strings por línea:
+ * solo ubica el inicio y fin de las primeras 'columnasMax' columnas y salta
+ * el resto de la línea. Respeta los campos entre comillas (que pueden tener
+ * comas o saltos de línea) y las comillas escapadas ("").
+ *
+ * Uso típico:
+ *   while (lector.siguienteLinea()) { double r = lector.decimal(5); ... }
+ */
+public class LectorCSV implements Closeable {
+    private static final double[] POTENCIAS_10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private final InputStream entrada;
+    private final int columnasMax;
+    private byte[] buf;
+    private int pos; // inicio de la próxima línea dentro de buf
+    private int limite; // bytes válidos en buf
+    private boolean finEntrada;
+    private long bytesLeidos;
+
+    // Límites de los campos de la línea actual
+    private final int[] inicioCampo;
+    private final int[] finCampo;
+    private final boolean[] conComillas;
+    private int camposEncontrados;
+
+    public LectorCSV(InputStream entrada, int columnasMax) {
+        this(entrada, columnasMax, 1 << 16);
+    }
+
+    public LectorCSV(InputStream entrada, int columnasMax, int tamBuffer) {
+        this.entrada = entrada;
+        this.columnasMax = columnasMax;
+        this.buf = new byte[tamBuffer];
+        this.inicioCampo = new int[columnasMax];
+        this.finCampo = new int[columnasMax];
+        this.conComillas = new boolean[columnasMax];
+    }
+
+    /**
+     * Avanza a la siguiente línea. Devuelve false al llegar al final.
+     */
+    public boolean siguienteLinea() throws IOException {
+        while (true) {
+            if (pos >= limite && finEntrada)
+                return false;
+            if (escanearLinea())
+                return true;
+            // La línea no cabe en lo que queda del buffer: se recarga y se vuelve a escanear
+            if (finEntrada) {
+                // Última línea sin salto de línea final
+                escanearHastaFin();
+                return true;
+            }
+            rellenar();
+        }
+    }
+
+    /**
+     * Intenta reconocer una línea completa a partir de 'pos'.
+     * Devuelve false si el buffer se acaba antes del salto de línea.
+     */
+    private boolean escanearLinea() {
+        int p = pos;
+        int campo = 0;
+        int inicio = p;
+        boolean comillas = false;
+        boolean dentroComillas = false;
+        byte[] b = buf;
+        int lim = limite;
+        while (p < lim) {
+            byte c = b[p];
+            if (dentroComillas) {
+                if (c == '"') {
+                    if (p + 1 >= lim && !finEntrada)
+                        return false; // no sabemos si es "" escapada
+                    if (p + 1 < lim && b[p + 1] == '"') {
+                        p += 2;
+                        continue;
+                    }
+                    dentroComillas = false;
+                }
+                p++;
+                continue;
+            }
+            if (c == '"') {
+                dentroComillas = true;
+                if (p == inicio)
+                    comillas = true;
+            } else if (c == ',') {
+                if (campo < columnasMax)
+                    guardarCampo(campo, inicio, p, comillas);
+                campo++;
+                inicio = p + 1;
+                comillas = false;
+            } else if (c == '\n') {
+                int fin = (p > inicio && b[p - 1] == '\r') ? p - 1 : p;
+                if (campo < columnasMax)
+                    guardarCampo(campo, inicio, fin, comillas);
+                camposEncontrados = Math.min(campo + 1, columnasMax);
+                pos = p + 1;
+                return true;
+            }
+            p++;
+        }
+        return false;
+    }
+
+    // Igual que escanearLinea pero el final del buffer cuenta como fin de línea
+    private void escanearHastaFin() {
+        buf = Arrays.copyOf(buf, Math.max(buf.length, limite + 1));
+        buf[limite] = '\n';
+        limite++;
+        if (!escanearLinea()) {
+            // Comillas sin cerrar hasta el final del archivo: línea mal formada
+            camposEncontrados = 0;
+            pos = limite;
+        }
+    }
+
+    private void guardarCampo(int campo, int inicio, int fin, boolean comillas) {
+        inicioCampo[campo] = inicio;
+        finCampo[campo] = fin;
+        conComillas[campo] = comillas;
+    }
+
+    // Mueve la línea incompleta al inicio del buffer y lee más bytes
+    private void rellenar() throws IOException {
+        int restante = limite - pos;
+        if (pos == 0 && restante == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2); // línea más grande que el buffer
+        } else {
+            System.arraycopy(buf, pos, buf, 0, restante);
+        }
+        pos = 0;
+        limite = restante;
+        int leidos = entrada.read(buf, limite, buf.length - limite);
+        if (leidos < 0) {
+            finEntrada = true;
+        } else {
+            limite += leidos;
+            bytesLeidos += leidos;
+        }
+    }
+
+    // Número de columnas reconocidas en la línea actual (como máximo columnasMax)
+    public int campos() {
+        return camposEncontrados;
+    }
+
+    public byte[] buffer() {
+        return buf;
+    }
+
+    public long bytesLeidos() {
+        return bytesLeidos;
+    }
+
+    /**
+     * Desplazamiento (en bytes desde el inicio de la entrada) de la próxima
+     * línea: llamado antes de siguienteLinea() es donde empieza esa línea.
+     */
+    public long posicion() {
+        return bytesLeidos - (limite - pos);
+    }
+
+    /**
+     * Quita las comillas externas del campo (y convierte "" en ") dentro del
+     * mismo buffer. Después de llamarlo, inicio(k) y largo(k) describen el
+     * contenido real del campo.
+     */
+    public void quitarComillas(int k) {
+        verificarCampo(k);
+        if (!conComillas[k])
+            return;
+        int lectura = inicioCampo[k] + 1;
+        int escritura = inicioCampo[k];
+        int fin = finCampo[k];
+        boolean dentro = true;
+        while (lectura < fin) {
+            byte c = buf[lectura++];
+            if (c == '"') {
+                if (dentro && lectura < fin && buf[lectura] == '"') {
+                    buf[escritura++] = '"';
+                    lectura++;
+                } else {
+                    dentro = !dentro;
+                }
+            } else {
+                buf[escritura++] = c;
+            }
+        }
+        finCampo[k] = escritura;
+        conComillas[k] = false;
+    }
+
+    public int inicio(int k) {
+        verificarCampo(k);
+        return inicioCampo[k];
+    }
+
+    public int largo(int k) {
+        verificarCampo(k);
+        return finCampo[k] - inicioCampo[k];
+    }
+
+    // Inicio del campo ignorando espacios y comillas (como replace("\"", "").trim())
+    public int inicioLimpio(int k) {
+        verificarCampo(k);
+        int s = inicioCampo[k];
+        int e = finCampo[k];
+        while (s < e && (buf[s] == '"' || (buf[s] & 0xFF) <= ' '))
+            s++;
+        return s;
+    }
+
+    public int finLimpio(int k) {
+        verificarCampo(k);
+        int s = inicioCampo[k];
+        int e = finCampo[k];
+        while (e > s && (buf[e - 1] == '"' || (buf[e - 1] & 0xFF) <= ' '))
+            e--;
+        return e;
+    }
+
+    // Campo como String (sin comillas); crea un objeto, usar solo fuera del bucle caliente
+    public String texto(int k) {
+        quitarComillas(k);
+        return new String(buf, inicioCampo[k], finCampo[k] - inicioCampo[k], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Convierte el campo a double directamente desde los bytes.
+     * Camino rápido para decimales simples (hasta 18 dígitos sin exponente);
+     * cualquier otro formato se delega a Double.parseDouble.
+     */
+    public double decimal(int k) {
+        int s = inicioLimpio(k);
+        int e = finLimpio(k);
+        if (s >= e)
+            throw new NumberFormatException("campo vacío en la columna " + k);
+        int p = s;
+        boolean negativo = false;
+        if (buf[p] == '-' || buf[p] == '+') {
+            negativo = buf[p] == '-';
+            p++;
+        }
+        long mantisa = 0;
+        int digitos = 0;
+        int decimales = -1;
+        for (; p < e; p++) {
+            byte c = buf[p];
+            if (c >= '0' && c <= '9') {
+                mantisa = mantisa * 10 + (c - '0');
+                digitos++;
+                if (decimales >= 0)
+                    decimales++;
+            } else if (c == '.' && decimales < 0) {
+                decimales = 0;
+            } else {
+                break;
+            }
+        }
+        if (p == e && digitos > 0 && digitos <= 18 && mantisa < (1L << 53)) {
+            // mantisa y 10^decimales son exactos en double: una sola división da el
+            // mismo resultado redondeado que Double.parseDouble
+            double valor = decimales > 0 ? mantisa / POTENCIAS_10[decimales] : mantisa;
+            return negativo ? -valor : valor;
+        }
+        return Double.parseDouble(new String(buf, s, e - s, StandardCharsets.US_ASCII));
+    }
+
+    // Convierte el campo a int directamente desde los bytes
+    public int entero(int k) {
+        int s = inicioLimpio(k);
+        int e = finLimpio(k);
+        if (s >= e)
+            throw new NumberFormatException("campo vacío en la columna " + k);
+        int p = s;
+        boolean negativo = buf[p] == '-';
+        if (negativo || buf[p] == '+')
+            p++;
+        long valor = 0;
+        if (p == e || e - p > 10)
+            return Integer.parseInt(new String(buf, s, e - s, StandardCharsets.US_ASCII));
+        for (; p < e; p++) {
+            byte c = buf[p];
+            if (c < '0' || c > '9')
+                return Integer.parseInt(new String(buf, s, e - s, StandardCharsets.US_ASCII));
+            valor = valor * 10 + (c - '0');
+        }
+        valor = negativo ? -valor : valor;
+        if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE)
+            throw new NumberFormatException("fuera de rango: " + new String(buf, s, e - s, StandardCharsets.US_ASCII));
+        return (int) valor;
+    }
+
+    private void verificarCampo(int k) {
+        if (k >= camposEncontrados)
+            throw new NumberFormatException("la línea no tiene la columna " + k);
+    }
+
+    /**
+     * Indica si un campo de texto necesita comillas al escribirse en CSV.
+     */
+    public static boolean necesitaComillas(byte[] b, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            byte c = b[i];
+            if (c == ',' || c == '"' || c == '\n' || c == '\r')
+                return true;
+        }
+        return false;
+    }
+
+    // Versión para Strings (usada por los escritores basados en String.format)
+    public static String campoCSV(String texto) {
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0
+                && texto.indexOf('\r') < 0)
+            return texto;
+        return "\"" + texto.replace("\"", "\"\"") + "\"";
+    }
+
+    @Override
+    public void close() throws IOException {
+        entrada.close();
+    }
+}
@@ -0,0 +1,371 @@
+import java.util.Arrays;
+
+/**
+ * Conjunto comprimido de filas (enteros no negativos) al estilo Roaring.
+ *
+ * Cada fila se parte en 16 bits altos (clave del contenedor) y 16 bajos. Un
+ * contenedor guarda los bits bajos de su rango de 65536 filas de una de dos
+ * formas, la que ocupe menos:
+ *  - arreglo ordenado de char (hasta MAX_ARREGLO valores, 2 bytes cada uno)
+ *  - mapa de 65536 bits (8 KB fijos) cuando hay más
+ * Las intersecciones, uniones y diferencias se hacen contenedor por
+ * contenedor: palabra a palabra entre mapas, por mezcla entre arreglos y
+ * probando bits entre un arreglo y un mapa.
+ *
+ * Las operaciones devuelven un conjunto nuevo y no modifican los operandos,
+ * así los mapas precalculados de IndiceFacetas se comparten entre consultas.
+ * El resultado puede compartir contenedores con los operandos: agregar() es
+ * solo para armar un conjunto desde cero (idealmente en orden ascendente).
+ */
+public class MapaBits {
+    // Con más valores un arreglo ocuparía más que los 8 KB del mapa de bits
+    static final int MAX_ARREGLO = 4096;
+    private static final int PALABRAS = 1 << 10; // 65536 bits
+
+    private char[] claves = new char[4];
+    private Contenedor[] contenedores = new Contenedor[4];
+    private int cantidad;
+
+    // Bits bajos de las filas de un rango de 65536: 'valores' o 'bits' (el otro es null)
+    private static final class Contenedor {
+        char[] valores;
+        long[] bits;
+        int cardinalidad;
+
+        static Contenedor arreglo(char[] valores, int cardinalidad) {
+            Contenedor c = new Contenedor();
+            c.valores = valores;
+            c.cardinalidad = cardinalidad;
+            return c;
+        }
+
+        // Mapa de bits ya calculado; si quedó chico se pasa a arreglo. null si está vacío
+        static Contenedor mapa(long[] bits, int cardinalidad) {
+            if (cardinalidad == 0)
+                return null;
+            if (cardinalidad > MAX_ARREGLO) {
+                Contenedor c = new Contenedor();
+                c.bits = bits;
+                c.cardinalidad = cardinalidad;
+                return c;
+            }
+            char[] valores = new char[cardinalidad];
+            int n = 0;
+            for (int w = 0; w < PALABRAS; w++) {
+                long palabra = bits[w];
+                while (palabra != 0) {
+                    valores[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+            return arreglo(valores, n);
+        }
+
+        void agregar(char x) {
+            if (bits != null) {
+                long antes = bits[x >>> 6];
+                bits[x >>> 6] = antes | (1L << x);
+                if (bits[x >>> 6] != antes)
+                    cardinalidad++;
+                return;
+            }
+            int i;
+            if (cardinalidad == 0 || x > valores[cardinalidad - 1]) {
+                i = cardinalidad; // caso común al construir: filas en orden
+            } else {
+                i = Arrays.binarySearch(valores, 0, cardinalidad, x);
+                if (i >= 0)
+                    return;
+                i = -i - 1;
+            }
+            if (cardinalidad == MAX_ARREGLO) {
+                // Pasa a mapa de bits
+                bits = new long[PALABRAS];
+                for (int k = 0; k < cardinalidad; k++)
+                    bits[valores[k] >>> 6] |= 1L << valores[k];
+                valores = null;
+                bits[x >>> 6] |= 1L << x;
+                cardinalidad++;
+                return;
+            }
+            if (cardinalidad == valores.length)
+                valores = Arrays.copyOf(valores, Math.min(MAX_ARREGLO, Math.max(4, cardinalidad * 2)));
+            System.arraycopy(valores, i, valores, i + 1, cardinalidad - i);
+            valores[i] = x;
+            cardinalidad++;
+        }
+
+        boolean contiene(char x) {
+            if (bits != null)
+                return (bits[x >>> 6] & (1L << x)) != 0;
+            return Arrays.binarySearch(valores, 0, cardinalidad, x) >= 0;
+        }
+
+        Contenedor y(Contenedor o) {
+            if (bits != null && o.bits != null) {
+                long[] r = new long[PALABRAS];
+                int card = 0;
+                for (int w = 0; w < PALABRAS; w++) {
+                    r[w] = bits[w] & o.bits[w];
+                    card += Long.bitCount(r[w]);
+                }
+                return mapa(r, card);
+            }
+            if (bits != null)
+                return o.y(this);
+            char[] r = new char[Math.min(cardinalidad, o.cardinalidad)];
+            int n = 0;
+            if (o.bits != null) {
+                for (int i = 0; i < cardinalidad; i++) {
+                    if (o.contiene(valores[i]))
+                        r[n++] = valores[i];
+                }
+            } else {
+                for (int i = 0, j = 0; i < cardinalidad && j < o.cardinalidad;) {
+                    char a = valores[i];
+                    char b = o.valores[j];
+                    if (a < b) {
+                        i++;
+                    } else if (a > b) {
+                        j++;
+                    } else {
+                        r[n++] = a;
+                        i++;
+                        j++;
+                    }
+                }
+            }
+            return n == 0 ? null : arreglo(r, n);
+        }
+
+        Contenedor o(Contenedor o) {
+            if (bits == null && o.bits == null && cardinalidad + o.cardinalidad <= MAX_ARREGLO) {
+                char[] r = new char[cardinalidad + o.cardinalidad];
+                int n = 0;
+                int i = 0;
+                int j = 0;
+                while (i < cardinalidad && j < o.cardinalidad) {
+                    char a = valores[i];
+                    char b = o.valores[j];
+                    if (a <= b) {
+                        r[n++] = a;
+                        i++;
+                        if (a == b)
+                            j++;
+                    } else {
+                        r[n++] = b;
+                        j++;
+                    }
+                }
+                while (i < cardinalidad)
+                    r[n++] = valores[i++];
+                while (j < o.cardinalidad)
+                    r[n++] = o.valores[j++];
+                return arreglo(r, n);
+            }
+            long[] r = copiaBits();
+            if (o.bits != null) {
+                for (int w = 0; w < PALABRAS; w++)
+                    r[w] |= o.bits[w];
+            } else {
+                for (int j = 0; j < o.cardinalidad; j++)
+                    r[o.valores[j] >>> 6] |= 1L << o.valores[j];
+            }
+            return mapa(r, contar(r));
+        }
+
+        Contenedor menos(Contenedor o) {
+            if (bits != null) {
+                long[] r = Arrays.copyOf(bits, PALABRAS);
+                if (o.bits != null) {
+                    for (int w = 0; w < PALABRAS; w++)
+                        r[w] &= ~o.bits[w];
+                } else {
+                    for (int j = 0; j < o.cardinalidad; j++)
+                        r[o.valores[j] >>> 6] &= ~(1L << o.valores[j]);
+                }
+                return mapa(r, contar(r));
+            }
+            char[] r = new char[cardinalidad];
+            int n = 0;
+            if (o.bits != null) {
+                for (int i = 0; i < cardinalidad; i++) {
+                    if (!o.contiene(valores[i]))
+                        r[n++] = valores[i];
+                }
+            } else {
+                for (int i = 0, j = 0; i < cardinalidad; i++) {
+                    char a = valores[i];
+                    while (j < o.cardinalidad && o.valores[j] < a)
+                        j++;
+                    if (j == o.cardinalidad || o.valores[j] != a)
+                        r[n++] = a;
+                }
+            }
+            return n == 0 ? null : arreglo(r, n);
+        }
+
+        private long[] copiaBits() {
+            if (bits != null)
+                return Arrays.copyOf(bits, PALABRAS);
+            long[] r = new long[PALABRAS];
+            for (int i = 0; i < cardinalidad; i++)
+                r[valores[i] >>> 6] |= 1L << valores[i];
+            return r;
+        }
+
+        private static int contar(long[] bits) {
+            int card = 0;
+            for (long palabra : bits)
+                card += Long.bitCount(palabra);
+            return card;
+        }
+
+        // Escribe las filas (alto << 16 | bajo) en destino desde 'pos'; devuelve la siguiente posición
+        int volcar(int[] destino, int pos, int alto) {
+            int base = alto << 16;
+            if (bits == null) {
+                for (int i = 0; i < cardinalidad; i++)
+                    destino[pos++] = base | valores[i];
+                return pos;
+            }
+            for (int w = 0; w < PALABRAS; w++) {
+                long palabra = bits[w];
+                while (palabra != 0) {
+                    destino[pos++] = base | ((w << 6) + Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+            return pos;
+        }
+
+        long bytesEnMemoria() {
+            return bits != null ? (long) bits.length * 8 : (long) valores.length * 2;
+        }
+    }
+
+    /**
+     * Agrega una fila. Agregar en orden ascendente es O(1); en cualquier otro
+     * orden también funciona, con una búsqueda binaria.
+     */
+    public void agregar(int fila) {
+        char alto = (char) (fila >>> 16);
+        int i;
+        if (cantidad > 0 && claves[cantidad - 1] == alto) {
+            i = cantidad - 1;
+        } else if (cantidad == 0 || alto > claves[cantidad - 1]) {
+            i = insertarContenedor(cantidad, alto);
+        } else {
+            i = Arrays.binarySearch(claves, 0, cantidad, alto);
+            if (i < 0)
+                i = insertarContenedor(-i - 1, alto);
+        }
+        contenedores[i].agregar((char) fila);
+    }
+
+    private int insertarContenedor(int i, char alto) {
+        agregarContenedor(alto, Contenedor.arreglo(new char[4], 0));
+        // agregarContenedor lo dejó al final: se corre a su lugar
+        Contenedor c = contenedores[cantidad - 1];
+        System.arraycopy(claves, i, claves, i + 1, cantidad - 1 - i);
+        System.arraycopy(contenedores, i, contenedores, i + 1, cantidad - 1 - i);
+        claves[i] = alto;
+        contenedores[i] = c;
+        return i;
+    }
+
+    // Agrega al final (las claves deben llegar en orden); ignora contenedores vacíos
+    private void agregarContenedor(char alto, Contenedor c) {
+        if (c == null)
+            return;
+        if (cantidad == claves.length) {
+            claves = Arrays.copyOf(claves, cantidad * 2);
+            contenedores = Arrays.copyOf(contenedores, cantidad * 2);
+        }
+        claves[cantidad] = alto;
+        contenedores[cantidad] = c;
+        cantidad++;
+    }
+
+    public boolean contiene(int fila) {
+        int i = Arrays.binarySearch(claves, 0, cantidad, (char) (fila >>> 16));
+        return i >= 0 && contenedores[i].contiene((char) fila);
+    }
+
+    public int cardinalidad() {
+        int total = 0;
+        for (int i = 0; i < cantidad; i++)
+            total += contenedores[i].cardinalidad;
+        return total;
+    }
+
+    // Intersección
+    public MapaBits y(MapaBits o) {
+        MapaBits r = new MapaBits();
+        for (int i = 0, j = 0; i < cantidad && j < o.cantidad;) {
+            if (claves[i] < o.claves[j]) {
+                i++;
+            } else if (claves[i] > o.claves[j]) {
+                j++;
+            } else {
+                r.agregarContenedor(claves[i], contenedores[i].y(o.contenedores[j]));
+                i++;
+                j++;
+            }
+        }
+        return r;
+    }
+
+    // Unión
+    public MapaBits o(MapaBits o) {
+        MapaBits r = new MapaBits();
+        int i = 0;
+        int j = 0;
+        while (i < cantidad || j < o.cantidad) {
+            if (j == o.cantidad || (i < cantidad && claves[i] < o.claves[j])) {
+                r.agregarContenedor(claves[i], contenedores[i]);
+                i++;
+            } else if (i == cantidad || claves[i] > o.claves[j]) {
+                r.agregarContenedor(o.claves[j], o.contenedores[j]);
+                j++;
+            } else {
+                r.agregarContenedor(claves[i], contenedores[i].o(o.contenedores[j]));
+                i++;
+                j++;
+            }
+        }
+        return r;
+    }
+
+    // Diferencia: las filas de este conjunto que no están en 'o'
+    public MapaBits menos(MapaBits o) {
+        MapaBits r = new MapaBits();
+        for (int i = 0, j = 0; i < cantidad; i++) {
+            while (j < o.cantidad && o.claves[j] < claves[i])
+                j++;
+            if (j < o.cantidad && o.claves[j] == claves[i])
+                r.agregarContenedor(claves[i], contenedores[i].menos(o.contenedores[j]));
+            else
+                r.agregarContenedor(claves[i], contenedores[i]);
+        }
+        return r;
+    }
+
+    /**
+     * Las filas en orden ascendente.
+     */
+    public int[] aArreglo() {
+        int[] filas = new int[cardinalidad()];
+        int pos = 0;
+        for (int i = 0; i < cantidad; i++)
+            pos = contenedores[i].volcar(filas, pos, claves[i]);
+        return filas;
+    }
+
+    public long bytesEnMemoria() {
+        long total = (long) claves.length * 2 + (long) contenedores.length * 8;
+        for (int i = 0; i < cantidad; i++)
+            total += 16 + contenedores[i].bytesEnMemoria();
+        return total;
+    }
+}
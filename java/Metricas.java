@@ -0,0 +1,299 @@
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+
+/**
+ * Instrumentación de limpiarDatos y Ordenar con un reporte JSON por ejecución.
+ *
+ *  - Contadores con nombre (filas leídas/omitidas/mal formadas, bytes leídos
+ *    y escritos...): Metricas.contar("filasLeidas", n).
+ *  - Fases con tiempo de pared, CPU del proceso, bytes asignados y GC:
+ *    try (Metricas.Fase f = Metricas.fase("ordenamiento")) { ... }
+ *    Los bytes asignados son globales (heap usado + lo que liberó cada GC),
+ *    así cuentan también los hilos que terminan dentro de la fase.
+ *  - Comparaciones e intercambios de los motores de ordenamiento, solo con
+ *    -Dmetricas.contar=true: CONTAR es una constante, así que con el valor
+ *    por defecto el JIT elimina los incrementos del bucle caliente.
+ *  - Pausas de GC (cantidad, total y máxima) desde las notificaciones de los
+ *    GarbageCollectorMXBean.
+ *
+ * Al terminar se escribe reporte_<programa>.json (o -Dmetricas.reporte=ruta).
+ * Con -Dmetricas.jfr=archivo.jfr además se graba un JFR de toda la ejecución,
+ * con un evento por fase.
+ */
+public class Metricas {
+    public static final boolean CONTAR = Boolean.getBoolean("metricas.contar");
+    public static final LongAdder COMPARACIONES = new LongAdder();
+    public static final LongAdder INTERCAMBIOS = new LongAdder();
+
+    private static final Map<String, LongAdder> CONTADORES = new ConcurrentSkipListMap<>();
+    private static final List<Fase> FASES = new ArrayList<>();
+    private static final LongAdder PAUSAS_GC = new LongAdder();
+    private static final LongAdder MS_PAUSAS_GC = new LongAdder();
+    private static volatile long maxPausaGcMs;
+    // Bytes del heap liberados por las recolecciones ya notificadas
+    private static final LongAdder LIBERADOS_GC = new LongAdder();
+    private static final Set<String> POOLS_HEAP = new HashSet<>();
+    private static final List<MemoryPoolMXBean> POOLS = new ArrayList<>();
+    // Recolecciones anteriores a escuchar las notificaciones (nunca se notifican)
+    private static long gcSinNotificar;
+
+    static {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                POOLS.add(pool);
+                POOLS_HEAP.add(pool.getName());
+            }
+        }
+        escucharPausasGc();
+    }
+
+    private static String programa = "programa";
+    private static long inicioNs;
+    private static long cpuInicioNs;
+    private static Recording grabacion;
+
+    // Evento JFR de una fase (aparece en JDK Mission Control como "ProyectoEDA Fase")
+    @Name("proyectoeda.Fase")
+    @Label("ProyectoEDA Fase")
+    @Category("ProyectoEDA")
+    static class EventoFase extends jdk.jfr.Event {
+        @Label("Nombre")
+        String nombre;
+        @Label("Bytes asignados")
+        long bytesAsignados;
+    }
+
+    /**
+     * Mediciones de una fase; se cierra con try-with-resources.
+     */
+    public static class Fase implements AutoCloseable {
+        final String nombre;
+        private final long wall0 = System.nanoTime();
+        private final long cpu0 = cpuProceso();
+        private final long bytes0 = bytesAsignados();
+        private final long gc0 = conteoGc();
+        private final long gcMs0 = tiempoGc();
+        private final long comparaciones0 = COMPARACIONES.sum();
+        private final long intercambios0 = INTERCAMBIOS.sum();
+        private final EventoFase evento = new EventoFase();
+        long wallNs;
+        long cpuNs;
+        long bytesAsignados;
+        long gcConteo;
+        long gcMs;
+        long comparaciones;
+        long intercambios;
+
+        private Fase(String nombre) {
+            this.nombre = nombre;
+            evento.begin();
+        }
+
+        @Override
+        public void close() {
+            wallNs = System.nanoTime() - wall0;
+            cpuNs = cpuProceso() - cpu0;
+            bytesAsignados = Math.max(0, bytesAsignados() - bytes0);
+            gcConteo = conteoGc() - gc0;
+            gcMs = tiempoGc() - gcMs0;
+            comparaciones = COMPARACIONES.sum() - comparaciones0;
+            intercambios = INTERCAMBIOS.sum() - intercambios0;
+            evento.nombre = nombre;
+            evento.bytesAsignados = bytesAsignados;
+            evento.commit();
+            synchronized (FASES) {
+                FASES.add(this);
+            }
+        }
+    }
+
+    public static void iniciar(String nombrePrograma) {
+        programa = nombrePrograma;
+        inicioNs = System.nanoTime();
+        cpuInicioNs = cpuProceso();
+        String jfr = System.getProperty("metricas.jfr");
+        if (jfr != null && !jfr.isEmpty()) {
+            grabacion = new Recording();
+            grabacion.enable(EventoFase.class);
+            grabacion.enable("jdk.GarbageCollection");
+            grabacion.enable("jdk.ObjectAllocationSample");
+            grabacion.enable("jdk.ExecutionSample").withPeriod(java.time.Duration.ofMillis(20));
+            try {
+                // Con destino, al detener la grabación se escribe el archivo
+                grabacion.setDestination(Paths.get(jfr).toAbsolutePath());
+                grabacion.start();
+            } catch (IOException e) {
+                System.err.println("No se pudo iniciar la grabación JFR " + jfr + ": " + e.getMessage());
+                grabacion.close();
+                grabacion = null;
+            }
+        }
+    }
+
+    public static Fase fase(String nombre) {
+        return new Fase(nombre);
+    }
+
+    public static void contar(String nombre, long delta) {
+        CONTADORES.computeIfAbsent(nombre, k -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Escribe el reporte JSON y, si hay grabación JFR, la cierra.
+     */
+    public static void terminar() {
+        String ruta = System.getProperty("metricas.reporte", "reporte_" + programa + ".json");
+        try (BufferedWriter w = new BufferedWriter(new FileWriter(ruta))) {
+            w.write(reporteJson());
+        } catch (IOException e) {
+            System.err.println("No se pudo escribir el reporte " + ruta + ": " + e.getMessage());
+        }
+        if (grabacion != null) {
+            grabacion.stop();
+            grabacion.close();
+        }
+    }
+
+    static String reporteJson() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        StringBuilder sb = new StringBuilder("{\n");
+        sb.append("  \"programa\": ").append(Json.texto(programa)).append(",\n");
+        sb.append("  \"fecha\": \"").append(Instant.now()).append("\",\n");
+        sb.append("  \"java\": ").append(Json.texto(System.getProperty("java.version"))).append(",\n");
+        sb.append("  \"procesadores\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        sb.append("  \"heapMaxBytes\": ").append(heap.getMax()).append(",\n");
+        sb.append("  \"heapUsadoBytes\": ").append(heap.getUsed()).append(",\n");
+        sb.append(String.format("  \"segundosTotales\": %.6f,\n", (System.nanoTime() - inicioNs) / 1e9));
+        sb.append(String.format("  \"segundosCpu\": %.6f,\n", (cpuProceso() - cpuInicioNs) / 1e9));
+        sb.append("  \"gc\": {\"pausas\": ").append(PAUSAS_GC.sum()).append(", \"msTotal\": ")
+                .append(MS_PAUSAS_GC.sum()).append(", \"msMaxima\": ").append(maxPausaGcMs).append("},\n");
+        sb.append("  \"contadores\": {");
+        boolean primero = true;
+        for (Map.Entry<String, LongAdder> e : CONTADORES.entrySet()) {
+            sb.append(primero ? "\n" : ",\n").append("    ").append(Json.texto(e.getKey()))
+                    .append(": ").append(e.getValue().sum());
+            primero = false;
+        }
+        sb.append(primero ? "},\n" : "\n  },\n");
+        sb.append("  \"fases\": [");
+        synchronized (FASES) {
+            for (int i = 0; i < FASES.size(); i++) {
+                Fase f = FASES.get(i);
+                sb.append(i == 0 ? "\n" : ",\n");
+                sb.append("    {\"nombre\": ").append(Json.texto(f.nombre));
+                sb.append(String.format(", \"segundos\": %.6f, \"segundosCpu\": %.6f", f.wallNs / 1e9, f.cpuNs / 1e9));
+                sb.append(", \"bytesAsignados\": ").append(f.bytesAsignados);
+                sb.append(", \"gcConteo\": ").append(f.gcConteo).append(", \"gcMs\": ").append(f.gcMs);
+                if (CONTAR) {
+                    sb.append(", \"comparaciones\": ").append(f.comparaciones);
+                    sb.append(", \"intercambios\": ").append(f.intercambios);
+                }
+                sb.append('}');
+            }
+            sb.append(FASES.isEmpty() ? "]\n" : "\n  ]\n");
+        }
+        return sb.append("}\n").toString();
+    }
+
+    // Cada pausa llega como notificación del colector que la hizo
+    private static void escucharPausasGc() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(gc instanceof NotificationEmitter))
+                continue;
+            ((NotificationEmitter) gc).addNotificationListener((notificacion, contexto) -> {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notificacion.getType()))
+                    return;
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo
+                        .from((CompositeData) notificacion.getUserData());
+                long ms = info.getGcInfo().getDuration();
+                long liberados = 0;
+                Map<String, MemoryUsage> despues = info.getGcInfo().getMemoryUsageAfterGc();
+                for (Map.Entry<String, MemoryUsage> antes : info.getGcInfo().getMemoryUsageBeforeGc().entrySet()) {
+                    if (POOLS_HEAP.contains(antes.getKey()) && despues.containsKey(antes.getKey()))
+                        liberados += antes.getValue().getUsed() - despues.get(antes.getKey()).getUsed();
+                }
+                // Primero los bytes: cuando PAUSAS_GC cuenta esta recolección, LIBERADOS_GC ya la incluye
+                LIBERADOS_GC.add(liberados);
+                PAUSAS_GC.increment();
+                MS_PAUSAS_GC.add(ms);
+                if (ms > maxPausaGcMs)
+                    maxPausaGcMs = ms;
+            }, null, null);
+        }
+        gcSinNotificar = conteoGc() - PAUSAS_GC.sum();
+    }
+
+    // CPU de todos los hilos del proceso (incluye pools paralelos y GC)
+    static long cpuProceso() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean)
+            return Math.max(0, ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime());
+        return 0;
+    }
+
+    /**
+     * Bytes asignados en el heap desde el arranque, por todos los hilos
+     * (también los que ya terminaron): heap usado + lo liberado por cada GC.
+     * Crece con cada TLAB entregado, así que la precisión es de un TLAB por
+     * hilo. Las notificaciones de GC llegan en otro hilo: si falta alguna se
+     * espera (hasta ~100 ms) para no restar una recolección sin sumar lo que
+     * liberó.
+     */
+    static long bytesAsignados() {
+        for (int intento = 0; intento < 1000; intento++) {
+            long notificadas = PAUSAS_GC.sum();
+            if (conteoGc() - gcSinNotificar == notificadas) {
+                long usado = heapUsado();
+                long liberados = LIBERADOS_GC.sum();
+                if (PAUSAS_GC.sum() == notificadas && conteoGc() - gcSinNotificar == notificadas)
+                    return usado + liberados;
+            }
+            LockSupport.parkNanos(100_000);
+        }
+        return heapUsado() + LIBERADOS_GC.sum();
+    }
+
+    private static long heapUsado() {
+        long total = 0;
+        for (MemoryPoolMXBean pool : POOLS)
+            total += pool.getUsage().getUsed();
+        return total;
+    }
+
+    static long conteoGc() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            total += Math.max(0, gc.getCollectionCount());
+        return total;
+    }
+
+    static long tiempoGc() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            total += Math.max(0, gc.getCollectionTime());
+        return total;
+    }
+}
@@ -0,0 +1,329 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Ordenamiento externo por puntuación total para datos que no caben en el heap.
+ *
+ *  1. Primera pasada por la entrada: solo suma ratings para obtener C (con
+ *     KernelPuntuacion.PromedioPorBloques, el mismo C que las demás opciones).
+ *  2. Segunda pasada: se llenan corridas hasta el presupuesto de memoria (la
+ *     tabla se reserva entera al empezar cada corrida, con el largo promedio
+ *     de nombre medido en la primera pasada, y nunca crece), se
+ *     calcula la puntuación, se ordena cada corrida (HeapSortIterativo 4-ario
+ *     o QuickSort3Vias) y se vuelca a un archivo binario temporal.
+ *  3. Mezcla de k vías de las corridas con un árbol de perdedores, escribiendo
+ *     directamente el CSV final.
+ *
+ * En memoria solo hay una corrida a la vez (y en la mezcla, un registro por
+ * corrida), así el tamaño de la entrada no depende del heap de la JVM.
+ */
+public class OrdenamientoExterno {
+    // Bytes por fila de una corrida sin contar el nombre: columnas (4 + 8 + 8 + 4),
+    // orden (4), clave del ordenamiento (8), offset y hash del diccionario (4 + 4)
+    // y a lo sumo 16 de la tabla hash de ids
+    static final int BYTES_POR_FILA = 60;
+
+    // Estadísticas de la última ejecución
+    public static class Estadisticas {
+        public long filas;
+        public int corridas;
+        public long bytesLeidos;
+        public long bytesCorridas;
+        public long bytesEscritos;
+        public long comparacionesMezcla;
+        // Memoria reservada por corrida (tabla + orden + clave)
+        public long bytesPorCorrida;
+        public double segundosC;
+        public double segundosCorridas;
+        public double segundosMezcla;
+
+        @Override
+        public String toString() {
+            return String.format("Filas: %d | Corridas: %d (%.1f MB en memoria c/u) | Leídos: %.1f MB"
+                    + " | Volcado a corridas: %.1f MB | Escritos: %.1f MB | Comparaciones en la mezcla: %d\n"
+                    + "Tiempos: C %.3fs, corridas %.3fs, mezcla %.3fs", filas, corridas, bytesPorCorrida / 1048576.0,
+                    bytesLeidos / 1048576.0, bytesCorridas / 1048576.0, bytesEscritos / 1048576.0,
+                    comparacionesMezcla, segundosC, segundosCorridas, segundosMezcla);
+        }
+    }
+
+    /**
+     * Ordena un CSV Organization,Rating,NumberReview por puntuación bayesiana
+     * y escribe el ranking final (mismo formato que la opción 2).
+     * 'abrirEntrada' debe poder abrir la entrada dos veces; 'motor' elige cómo
+     * se ordena cada corrida: 1 = HeapSort iterativo, 2 = QuickSort 3 vías.
+     */
+    @SuppressWarnings("try")
+    public static Estadisticas ordenar(Callable<InputStream> abrirEntrada, String archivoSalida, double m,
+            long presupuestoBytes, int motor) throws Exception {
+        Estadisticas est = new Estadisticas();
+
+        // 1. C = promedio global de ratings
+        long t0 = System.nanoTime();
+        KernelPuntuacion.PromedioPorBloques promedio = new KernelPuntuacion.PromedioPorBloques();
+        long bytesNombres = 0;
+        try (Metricas.Fase fase = Metricas.fase("promedio");
+                LectorCSV lector = new LectorCSV(abrirEntrada.call(), 3)) {
+            lector.siguienteLinea(); // cabecera
+            while (lector.siguienteLinea()) {
+                try {
+                    double rating = lector.decimal(1);
+                    lector.entero(2); // misma validación que la carga normal
+                    promedio.agregar(rating);
+                    bytesNombres += lector.largo(0);
+                } catch (NumberFormatException e) {
+                    // Ignorar líneas mal formadas
+                }
+            }
+            est.bytesLeidos += lector.bytesLeidos();
+        }
+        if (promedio.cantidad() == 0)
+            throw new IOException("No se cargaron registros");
+        double C = promedio.promedio();
+        est.filas = promedio.cantidad();
+        est.segundosC = (System.nanoTime() - t0) / 1e9;
+
+        // 2. Corridas ordenadas
+        t0 = System.nanoTime();
+        List<Path> corridas = new ArrayList<>();
+        try {
+            try (Metricas.Fase fase = Metricas.fase("corridas");
+                    LectorCSV lector = new LectorCSV(abrirEntrada.call(), 3)) {
+                lector.siguienteLinea();
+                // Filas por corrida: el presupuesto entre lo que ocupa una fila con un nombre promedio
+                long largoPromedio = (bytesNombres + est.filas - 1) / est.filas;
+                int capacidad = (int) Math.min(Integer.MAX_VALUE - 8,
+                        Math.max(1024, presupuestoBytes / (BYTES_POR_FILA + largoPromedio)));
+                int reservaNombres = (int) Math.min(Integer.MAX_VALUE - 8, capacidad * largoPromedio);
+                RestauranteTable tabla = new RestauranteTable(capacidad, reservaNombres);
+                // Lo reservado de entrada: la tabla y lo que agrega el ordenamiento (orden + clave)
+                est.bytesPorCorrida = tabla.bytesEnMemoria() + (long) capacidad * (4 + 8);
+                int nombresUsados = 0;
+                while (lector.siguienteLinea()) {
+                    double rating;
+                    int numeroResenas;
+                    try {
+                        rating = lector.decimal(1);
+                        numeroResenas = lector.entero(2);
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+                    lector.quitarComillas(0);
+                    int largo = lector.largo(0);
+                    // Corrida llena si la fila no entra en lo reservado (así la tabla nunca crece)
+                    if (tabla.size() == capacidad || (tabla.size() > 0 && nombresUsados + largo > reservaNombres)) {
+                        corridas.add(volcarCorrida(tabla, C, m, motor, est));
+                        tabla = new RestauranteTable(capacidad, reservaNombres);
+                        nombresUsados = 0;
+                    }
+                    tabla.agregar(lector.buffer(), lector.inicio(0), largo, rating, numeroResenas);
+                    nombresUsados += largo;
+                }
+                if (tabla.size() > 0)
+                    corridas.add(volcarCorrida(tabla, C, m, motor, est));
+                est.bytesLeidos += lector.bytesLeidos();
+            }
+            est.corridas = corridas.size();
+            est.segundosCorridas = (System.nanoTime() - t0) / 1e9;
+
+            // 3. Mezcla
+            t0 = System.nanoTime();
+            try (Metricas.Fase fase = Metricas.fase("mezcla")) {
+                mezclar(corridas, archivoSalida, est);
+            }
+            est.segundosMezcla = (System.nanoTime() - t0) / 1e9;
+        } finally {
+            for (Path p : corridas)
+                Files.deleteIfExists(p);
+        }
+        Metricas.contar("filasLeidas", est.filas);
+        Metricas.contar("bytesLeidos", est.bytesLeidos);
+        Metricas.contar("bytesEscritos", est.bytesEscritos);
+        return est;
+    }
+
+    // Calcula la puntuación, ordena la corrida y la escribe en un archivo temporal
+    private static Path volcarCorrida(RestauranteTable tabla, double C, double m, int motor, Estadisticas est)
+            throws IOException {
+        int n = tabla.size();
+        for (int fila = 0; fila < n; fila++) {
+            int v = tabla.numeroResenas[fila];
+            tabla.puntuacionTotal[fila] = (v / (v + m)) * tabla.rating[fila] + (m / (v + m)) * C;
+        }
+        tabla.reiniciarOrden();
+        if (motor == 2)
+            QuickSort3Vias.ordenarPorPuntuacion(tabla);
+        else
+            HeapSortIterativo.ordenar(tabla, 4, null);
+
+        Path archivo = Files.createTempFile("corrida_", ".bin");
+        est.bytesCorridas += escribirCorrida(tabla, archivo);
+        return archivo;
+    }
+
+    /**
+     * Escribe la tabla en el orden de tabla.orden con el formato de las
+     * corridas (puntuación, rating, reseñas, largo y bytes del nombre), el que
+     * lee Corrida. Devuelve los bytes escritos.
+     */
+    static long escribirCorrida(RestauranteTable tabla, Path archivo) throws IOException {
+        int n = tabla.size();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(archivo.toFile()), 1 << 16))) {
+            byte[] nombres = tabla.bytesNombres();
+            for (int p = 0; p < n; p++) {
+                int fila = tabla.orden[p];
+                int id = tabla.nombreId[fila];
+                out.writeDouble(tabla.puntuacionTotal[fila]);
+                out.writeDouble(tabla.rating[fila]);
+                out.writeInt(tabla.numeroResenas[fila]);
+                out.writeInt(tabla.largoNombre(id));
+                out.write(nombres, tabla.inicioNombre(id), tabla.largoNombre(id));
+            }
+            return out.size();
+        }
+    }
+
+    /**
+     * Mezcla k corridas ordenadas en el CSV final. A igual puntuación sale
+     * primero el registro de la corrida con menor índice.
+     */
+    static void mezclar(List<Path> archivos, String archivoSalida, Estadisticas est) throws IOException {
+        int k = archivos.size();
+        Corrida[] corridas = new Corrida[k];
+        try {
+            for (int i = 0; i < k; i++) {
+                corridas[i] = new Corrida(archivos.get(i));
+                corridas[i].siguiente();
+            }
+            ArbolPerdedores arbol = new ArbolPerdedores(corridas);
+
+            long escritos = 0;
+            try (EscritorCSV writer = new EscritorCSV(Paths.get(archivoSalida), true)) {
+                writer.texto("Posición,Nombre,Rating,NumeroReseñas,PuntuaciónTotal\n");
+                long posicion = 0;
+                while (true) {
+                    int g = arbol.ganador();
+                    Corrida c = corridas[g];
+                    if (c.agotada)
+                        break;
+                    writer.entero(++posicion).coma().campo(c.nombre, 0, c.largoNombre).coma().decimal(c.rating, 2)
+                            .coma().entero(c.numeroResenas).coma().decimal(c.puntuacion, 4).finLinea();
+                    c.siguiente();
+                    arbol.ajustar(g);
+                }
+                escritos = writer.bytesEscritos();
+            }
+            est.bytesEscritos = escritos;
+            est.comparacionesMezcla = arbol.comparaciones;
+        } finally {
+            for (Corrida c : corridas) {
+                if (c != null)
+                    c.cerrar();
+            }
+        }
+    }
+
+    // Lector secuencial de una corrida binaria; mantiene el registro actual
+    static class Corrida {
+        private final DataInputStream in;
+        boolean agotada;
+        double puntuacion;
+        double rating;
+        int numeroResenas;
+        byte[] nombre = new byte[64];
+        int largoNombre;
+
+        Corrida(Path archivo) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(archivo.toFile()), 1 << 16));
+        }
+
+        void siguiente() throws IOException {
+            try {
+                puntuacion = in.readDouble();
+            } catch (EOFException e) {
+                agotada = true;
+                return;
+            }
+            rating = in.readDouble();
+            numeroResenas = in.readInt();
+            largoNombre = in.readInt();
+            if (largoNombre > nombre.length)
+                nombre = new byte[largoNombre * 2];
+            in.readFully(nombre, 0, largoNombre);
+        }
+
+        void cerrar() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Árbol de perdedores para la mezcla de k vías: cada nodo interno guarda la
+     * corrida que perdió en ese partido y arbol[0] al ganador. Al avanzar la
+     * corrida ganadora solo se rejuega su camino hasta la raíz: log2(k)
+     * comparaciones por registro (un heap necesita hasta el doble).
+     */
+    static class ArbolPerdedores {
+        private final Corrida[] corridas;
+        private final int[] arbol;
+        private final int k;
+        long comparaciones;
+
+        ArbolPerdedores(Corrida[] corridas) {
+            this.corridas = corridas;
+            this.k = corridas.length;
+            this.arbol = new int[Math.max(1, k)];
+            Arrays.fill(arbol, -1); // -1 = "gana siempre", solo durante la construcción
+            for (int i = k - 1; i >= 0; i--)
+                ajustar(i);
+        }
+
+        int ganador() {
+            return arbol[0];
+        }
+
+        // La corrida s cambió su registro actual: rejuega su camino hasta la raíz
+        void ajustar(int s) {
+            int t = (s + k) >> 1;
+            while (t > 0) {
+                // Durante la construcción s puede ser -1 y sube sin jugar
+                if (s != -1 && (arbol[t] == -1 || gana(arbol[t], s))) {
+                    int perdedor = s;
+                    s = arbol[t];
+                    arbol[t] = perdedor;
+                }
+                t >>= 1;
+            }
+            arbol[0] = s;
+        }
+
+        // Mayor puntuación primero; a igualdad, la corrida anterior (orden de entrada)
+        private boolean gana(int a, int b) {
+            Corrida ca = corridas[a];
+            Corrida cb = corridas[b];
+            if (ca.agotada)
+                return false;
+            if (cb.agotada)
+                return true;
+            comparaciones++;
+            if (ca.puntuacion != cb.puntuacion)
+                return ca.puntuacion > cb.puntuacion;
+            return a < b;
+        }
+    }
+}
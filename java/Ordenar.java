@@ -1,183 +1,737 @@
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Locale;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Ordenar {
     // m = 100 es un valor de equilibrio para la fórmula bayesiana
     // Este número actúa como "número de ratings" virtual para equilibrar entre
     // el rating individual del restaurante y el promedio global
-    private static final double m = 100.0;
+    // Se puede cambiar con --m=valor
+    private static double m = 100.0;
+
+    // Claves aceptadas por la línea de comandos (ver imprimirUso)
+    private static final String[] CLAVES = { "opcion", "motor", "entrada", "salida", "binario", "intermedio",
+            "cadenas", "formato", "m", "hilos", "memoria-mb", "k", "deltas", "tolerancia", "puerto", "cache",
+            "duracion-s", "fragmentos", "min-resenas", "max-resenas", "min-rating", "max-rating", "ayuda" };
 
     public static void main(String[] args) {
+        // Antes de crear el Scanner: toma el locale por defecto y debe leer "4.5" con punto
         Locale.setDefault(Locale.US);
         Scanner scanner = new Scanner(System.in);
-        String nombreArchivoEntrada = "datos_procesados.csv";
-        
-        // Usar ClassLoader para cargar el archivo de forma portátil
-        //ImputStream lo que hace es buscar el archivo dentro de los recursos del proyecto es mas eficiente que fileReader
-        InputStream inputStream = Ordenar.class.getResourceAsStream("/" + nombreArchivoEntrada);
-
-        // Verificación de existencia del archivo con if y mensaje de error claro
-        if (inputStream == null) {
-            System.err.println("ERROR FATAL: No se encuentra el recurso '" + nombreArchivoEntrada + "'.");
-            System.err.println("Asegúrate de que el archivo esté en la carpeta 'java/' con los .java");
-            System.err.println("Ruta de búsqueda actual: " + System.getProperty("user.dir"));
-            scanner.close();
+        Configuracion config;
+        try {
+            config = Configuracion.desdeArgumentos(args, scanner, CLAVES);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            imprimirUso();
+            System.exit(2);
+            return;
+        }
+        if (config.tiene("ayuda")) {
+            imprimirUso();
             return;
         }
+        // Debe fijarse antes del primer uso del pool común (QuickSort paralelo, parallel streams)
+        if (config.tiene("hilos"))
+            System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism",
+                    String.valueOf(Math.max(1, config.entero("hilos", null, 1))));
+
+        // Reporte JSON de la ejecución (tiempos por fase, filas, bytes, GC); ver Metricas
+        Metricas.iniciar("Ordenar");
+        int codigo;
+        try {
+            codigo = menu(config, scanner);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            codigo = 2;
+        } finally {
+            Metricas.terminar();
+        }
+        // En modo por lotes el código de salida indica si hubo error (para scripts y cron)
+        if (codigo != 0)
+            System.exit(codigo);
+    }
+
+    static void imprimirUso() {
+        System.out.println("Uso: java Ordenar [--opcion=1..10 [parámetros]]   (sin --opcion: menú interactivo)");
+        System.out.println("  --entrada=ruta        CSV de entrada leído del disco (por defecto el recurso del classpath)");
+        System.out.println("  --salida=ruta         ranking final (restaurantes_ordenados.csv)");
+        System.out.println("  --binario=ruta        intermedio binario de la opción 1 / entrada de la opción 2");
+        System.out.println("  --intermedio=ruta     intermedio CSV de la opción 1 / respaldo de la opción 2");
+        System.out.println("  --cadenas=ruta        ranking por marca de la opción 7");
+        System.out.println("  --formato=bin|csv|ambos   intermedios que escribe la opción 1 (bin)");
+        System.out.println("  --motor=N             motor de ordenamiento de la opción (1)");
+        System.out.println("  --m=valor             peso m de la fórmula bayesiana (100)");
+        System.out.println("  --hilos=N             hilos del pool común y del pipeline de ingesta");
+        System.out.println("  --memoria-mb=N        presupuesto por corrida del ordenamiento externo (256)"
+                + " / heap de cada trabajador de la opción 9");
+        System.out.println("  --fragmentos=N        procesos trabajadores de la opción 9 (1 = todo en este proceso)");
+        System.out.println("  --min-resenas=N --max-resenas=N --min-rating=x --max-rating=x   filtro de la opción 10"
+                + " (con alguno, una sola consulta)");
+        System.out.println("  --k=N  --deltas=ruta  --tolerancia=x  --puerto=N  --cache=N  --duracion-s=N");
+    }
+
+    // Las fases de Metricas se abren con try-with-resources sin usar la variable
+    @SuppressWarnings("try")
+    private static int menu(Configuracion config, Scanner scanner) {
+        m = config.decimal("m", null, m);
+        int hilos = Math.max(1, config.entero("hilos", null, Runtime.getRuntime().availableProcessors()));
 
         // Definimos las rutas completas basadas donde guardamos salida
-        // Los archivos de salida se guardarán en el directorio actual
-        String archivoQuickSort = "datos_ordenados_quick_sort.csv";
-        String archivoSalida = "restaurantes_ordenados.csv";
+        // Los archivos de salida se guardarán en el directorio actual (o donde indiquen los argumentos)
+        String archivoQuickSort = config.texto("intermedio", "datos_ordenados_quick_sort.csv");
+        // Archivo intermedio binario (lo que realmente lee la opción 2)
+        String archivoQuickSortBinario = config.texto("binario", "datos_ordenados_quick_sort.bin");
+        String archivoSalida = config.texto("salida", "restaurantes_ordenados.csv");
+        // Ranking por marca (opción 7)
+        String archivoCadenas = config.texto("cadenas", "cadenas_ordenadas.csv");
+        // Una escritura o un proceso que falló a mitad: la opción sigue, pero el código de salida es 1
+        boolean huboError = false;
+
+        if (config.interactivo()) {
+            System.out.println("=== MENÚ DE ORDENAMIENTO ===");
+            System.out.println("1. Generar archivo QuickSort por numero de reseñas");
+            System.out.println("2. Ejecutar HeapSort por puntuacion total (desde archivo QuickSort)");
+            System.out.println("3. Top-K por puntuacion total (sin ordenar todo el archivo)");
+            System.out.println("4. Ordenamiento externo por puntuacion total (datos más grandes que la memoria)");
+            System.out.println("5. Aplicar archivo de deltas al ranking (sin reordenar todo)");
+            System.out.println("6. Pipeline completo desde yelp_database.csv (limpieza + puntuación + ranking en una pasada)");
+            System.out.println("7. Ranking por local y por cadena (agrupa locales de la misma marca)");
+            System.out.println("8. Servidor de consultas del ranking (HTTP local)");
+            System.out.println("9. Ranking repartido en varios procesos (fragmentos del archivo + mezcla)");
+            System.out.println("10. Ranking filtrado por reseñas y rating (índices de mapas de bits)");
+        }
+        int opcion = config.entero("opcion", "Seleccione el algoritmo (1-10): ", 0);
 
-        System.out.println("Archivo de entrada cargado desde recursos: " + nombreArchivoEntrada);
+        // La opción 6 parte del archivo original y no necesita datos_procesados.csv
+        String nombreArchivoEntrada = config.nombreEntrada(opcion == 6 ? "yelp_database.csv" : "datos_procesados.csv");
+        // Con --entrada se lee directo del disco; si no, del classpath como antes.
+        // La opción 2 no la usa: parte del intermedio de la opción 1
+        InputStream inputStream = null;
+        if (opcion != 2) {
+            try {
+                inputStream = config.abrirEntrada(Ordenar.class, nombreArchivoEntrada);
+            } catch (IOException e) {
+                System.err.println("Error abriendo " + nombreArchivoEntrada + ": " + e.getMessage());
+                return 1;
+            }
 
-        // Lectura previa de datos (solo usada por opción 1)
-        System.out.println("=== MENÚ DE ORDENAMIENTO ===");
-        System.out.println("1. Generar archivo QuickSort por numero de reseñas");
-        System.out.println("2. Ejecutar HeapSort por puntuacion total (desde archivo QuickSort)");
-        System.out.print("Seleccione el algoritmo (1-2): ");
-        int opcion = scanner.nextInt();
+            // Verificación de existencia del archivo con if y mensaje de error claro
+            if (inputStream == null) {
+                System.err.println("ERROR FATAL: No se encuentra '" + nombreArchivoEntrada + "'.");
+                System.err.println("Asegúrate de que el archivo esté en la carpeta 'java/' con los .java"
+                        + " o indica la ruta con --entrada=");
+                System.err.println("Ruta de búsqueda actual: " + System.getProperty("user.dir"));
+                scanner.close();
+                return 1;
+            }
+            System.out.println("Archivo de entrada: " + nombreArchivoEntrada);
+        }
+
+        // Motor de ordenamiento: permite comparar la versión secuencial con la paralela
+        int motor = 1;
+        if (opcion == 1) {
+            if (config.interactivo()) {
+                System.out.println("Motor: 1. QuickSort secuencial  2. QuickSort paralelo (ForkJoin)"
+                        + "  3. Arrays.parallelSort  4. QuickSort 3 vías");
+                System.out.println("       5. Pipeline (lectura, parseo y ordenamiento concurrentes + mezcla)"
+                        + "  6. Radix / conteo (estable)");
+            }
+            motor = config.entero("motor", "Seleccione el motor (1-6): ", 1);
+        }
+        // El CSV intermedio ahora es opcional: la opción 2 lee el archivo binario
+        String formato = "bin";
+        if (opcion == 1) {
+            if (config.interactivo() && !config.tiene("formato"))
+                formato = config.entero("formato", "¿Exportar también el CSV intermedio? (1 = sí, 0 = no): ", 0) == 1
+                        ? "ambos" : "bin";
+            else
+                formato = config.texto("formato", "bin");
+            if (!formato.equals("bin") && !formato.equals("csv") && !formato.equals("ambos"))
+                throw new IllegalArgumentException("--formato debe ser bin, csv o ambos: " + formato);
+        } else if (opcion == 2) {
+            if (config.interactivo())
+                System.out.println("Motor: 1. HeapSort  2. QuickSort paralelo (ForkJoin)  3. HeapSort iterativo"
+                        + " (binario)  4. HeapSort iterativo (4-ario)  5. QuickSort 3 vías  6. Radix (bits IEEE-754)");
+            motor = config.entero("motor", "Seleccione el motor (1-6): ", 1);
+        }
 
         if (opcion == 1) {
             System.out.println("Cargando datos a memoria desde: " + nombreArchivoEntrada);
-            ArrayList<Restaurante> listaRestaurantes = new ArrayList<>(1_000_000);
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(inputStream))) {
-                String linea;
-                br.readLine(); // Saltamos la cabecera
-                while ((linea = br.readLine()) != null) {
-                    String[] partes = linea.split(",");
-                    try {
-                        String nombre = partes[0];
-                        double rating = Double.parseDouble(partes[1]);
-                        int numeroResenas = Integer.parseInt(partes[2]);
-                        Restaurante restaurante = new Restaurante(nombre, rating, numeroResenas);
-                        listaRestaurantes.add(restaurante);
-                    } catch (Exception e) {
-                        // Ignorar líneas mal formadas
-                    }
+            // Tabla columnar: arreglos primitivos en vez de un objeto por restaurante
+            RestauranteTable tabla;
+            long tCarga = System.nanoTime();
+            try (Metricas.Fase fase = Metricas.fase("carga")) {
+                if (motor == 5) {
+                    // Lectura, parseo y ordenamiento por lotes en paralelo; la tabla sale ordenada
+                    tabla = IngestaPipeline.cargarOrdenado(inputStream, hilos);
+                } else {
+                    // Formato: Organization,Rating,NumberReview
+                    tabla = cargarTabla(inputStream, 0);
                 }
-            } catch (IOException e) {
+            } catch (IOException | InterruptedException e) {
                 System.err.println("Error leyendo " + nombreArchivoEntrada + ": " + e.getMessage());
-                return;
+                return 1;
             }
 
-            if (listaRestaurantes.isEmpty()) {
+            if (tabla.size() == 0) {
                 System.out.println("No se cargaron registros. Abortando.");
-                return;
+                return 1;
             }
 
-            System.out.println("Carga completa. Se leyeron " + listaRestaurantes.size() + " registros.");
+            System.out.printf("Carga completa. Se leyeron %d registros en %.4f segundos.\n", tabla.size(),
+                    (System.nanoTime() - tCarga) / 1_000_000_000.0);
+            System.out.printf("Memoria aproximada de la tabla: %.1f MB\n", tabla.bytesEnMemoria() / (1024.0 * 1024.0));
             System.out.println("Iniciando QuickSort por NumberReview (genera archivo intermedio)...");
             long t0 = System.nanoTime();
 
             // QuickSort por número de reseñas (no calcula fórmula)
-            recursividadReviews(listaRestaurantes, 0, listaRestaurantes.size() - 1);
+            try (Metricas.Fase fase = Metricas.fase("ordenamiento.resenas.motor" + motor)) {
+                if (motor == 5) {
+                    // Ya viene ordenada desde el pipeline (mezcla de lotes ordenados)
+                } else if (motor == 2) {
+                    tabla.reiniciarOrden();
+                    QuickSortParalelo.ordenarPorResenas(tabla, ForkJoinPool.commonPool());
+                } else if (motor == 3) {
+                    QuickSortParalelo.ordenarPorResenasParallelSort(tabla);
+                } else if (motor == 4) {
+                    tabla.reiniciarOrden();
+                    QuickSort3Vias.ordenarPorResenas(tabla);
+                } else if (motor == 6) {
+                    tabla.reiniciarOrden();
+                    RadixSort.ordenarPorResenas(tabla);
+                } else {
+                    tabla.reiniciarOrden();
+                    recursividadReviews(tabla, 0, tabla.size() - 1);
+                }
+            }
 
             long t1 = System.nanoTime();
             double tiempoSeg = (t1 - t0) / 1_000_000_000.0;
-            System.out.printf("QuickSort (por reseñas) completado en %.4f segundos\n", tiempoSeg);
+            System.out.printf("QuickSort (por reseñas, motor %d) completado en %.4f segundos\n", motor, tiempoSeg);
 
-            // Escribir archivo intermedio con la estructura esperada
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(archivoQuickSort))) {
+            // Escribir archivo intermedio CSV con la estructura esperada (opcional)
+            if (!formato.equals("bin")) try (EscritorCSV writer = new EscritorCSV(Paths.get(archivoQuickSort), true)) {
                 // El archivo intermedio NO incluye la columna PuntuaciónTotal
-                writer.write("Posición,Nombre,Rating,NumeroReseñas\n");
-                for (int i = 0; i < listaRestaurantes.size(); i++) {
-                    Restaurante r = listaRestaurantes.get(i);
-                    writer.write(String.format("%d,%s,%.2f,%d\n",
-                            i + 1, r.nombre, r.rating, r.numeroResenas));
+                writer.texto("Posición,Nombre,Rating,NumeroReseñas\n");
+                for (int i = 0; i < tabla.size(); i++) {
+                    escribirFila(writer, tabla, tabla.filaEn(i), i + 1);
+                    writer.finLinea();
                 }
                 System.out.println("Archivo QuickSort generado: " + archivoQuickSort);
+                Metricas.contar("bytesEscritos", writer.bytesEscritos());
             } catch (IOException e) {
                 System.err.println("Error al escribir " + archivoQuickSort + ": " + e.getMessage());
+                huboError = true;
+            }
+
+            // Escribir archivo intermedio binario (ya en el orden del QuickSort). Va después
+            // del CSV: la opción 2 lee el más nuevo de los dos
+            if (!formato.equals("csv")) try (Metricas.Fase fase = Metricas.fase("escritura.binario")) {
+                long tb0 = System.nanoTime();
+                FormatoBinario.escribir(tabla, Paths.get(archivoQuickSortBinario));
+                Metricas.contar("bytesEscritos", new File(archivoQuickSortBinario).length());
+                System.out.printf("Archivo binario generado: %s (%.4f segundos)\n", archivoQuickSortBinario,
+                        (System.nanoTime() - tb0) / 1_000_000_000.0);
+            } catch (IOException e) {
+                System.err.println("Error al escribir " + archivoQuickSortBinario + ": " + e.getMessage());
+                huboError = true;
             }
             // Imprimir Top 20 únicos
             System.out.println("\n=== TOP 20 RESTAURANTES (por NumberReview) ===");
-            imprimirTop20Unicos(listaRestaurantes, false);
+            imprimirTop20Unicos(tabla, false);
 
         } else if (opcion == 2) {
-            // Verificamos que exista el archivo generado por QuickSort
+            // Verificamos que exista el archivo generado por QuickSort (binario o CSV)
+            // Si solo se indicó --intermedio se usa ese CSV aunque haya un binario de otra corrida
+            File binario = config.tiene("intermedio") && !config.tiene("binario") ? new File("")
+                    : new File(archivoQuickSortBinario);
             File f = new File(archivoQuickSort);
-            if (!f.exists()) {
-                System.out.println("El archivo " + archivoQuickSort + " no existe.");
+            if (!binario.exists() && !f.exists()) {
+                System.out.println("El archivo " + archivoQuickSortBinario + " no existe.");
                 System.out.println("Genere primero el archivo QuickSort (opción 1).");
-                return;
+                return 1;
             }
 
-            // Cargar lista desde archivoQuickSort
-            ArrayList<Restaurante> listaRestaurantes = new ArrayList<>(1_000_000);
-            try (BufferedReader br = new BufferedReader(new FileReader(archivoQuickSort))) {
-                String linea;
-                br.readLine(); // cabecera
-                while ((linea = br.readLine()) != null) {
-                    String[] partes = linea.split(",");
-                    try {
-                        // Formato esperado: Posición,Nombre,Rating,NumeroReseñas,PuntuaciónTotal
-                        String nombre = partes[1];
-                        double rating = Double.parseDouble(partes[2]);
-                        int numeroResenas = Integer.parseInt(partes[3]);
-                        Restaurante restaurante = new Restaurante(nombre, rating, numeroResenas);
-                        listaRestaurantes.add(restaurante);
-                    } catch (Exception e) {
-                        // ignorar línea mal formada
-                    }
+            // Cargar tabla: preferimos el binario (sin parsear texto), salvo que el CSV
+            // sea más nuevo (la última opción 1 escribió solo el CSV)
+            boolean usarBinario = binario.exists() && (!f.exists() || binario.lastModified() >= f.lastModified());
+            File leido = usarBinario ? binario : f;
+            RestauranteTable tabla;
+            long tc0 = System.nanoTime();
+            try (Metricas.Fase fase = Metricas.fase("carga")) {
+                if (usarBinario) {
+                    tabla = FormatoBinario.leer(binario.toPath());
+                    Metricas.contar("bytesLeidos", binario.length());
+                    Metricas.contar("filasLeidas", tabla.size());
+                } else {
+                    // Formato esperado: Posición,Nombre,Rating,NumeroReseñas
+                    tabla = cargarTabla(Files.newInputStream(Paths.get(archivoQuickSort)), 1);
                 }
             } catch (IOException e) {
-                System.err.println("Error leyendo " + archivoQuickSort + ": " + e.getMessage());
-                return;
+                System.err.println("Error leyendo " + leido + ": " + e.getMessage());
+                return 1;
             }
+            System.out.printf("Carga del archivo QuickSort (%s): %.4f segundos\n", leido,
+                    (System.nanoTime() - tc0) / 1_000_000_000.0);
 
-            if (listaRestaurantes.isEmpty()) {
-                System.out.println("No se cargaron registros desde " + archivoQuickSort);
-                return;
+            if (tabla.size() == 0) {
+                System.out.println("No se cargaron registros desde " + leido);
+                return 1;
             }
 
             System.out.println("Cálculo de C (promedio global) y aplicación de la fórmula...");
             long t0 = System.nanoTime();
 
-            double sumaTotalRatings = 0.0;
-            for (Restaurante r : listaRestaurantes)
-                sumaTotalRatings += r.rating;
-            double C = sumaTotalRatings / listaRestaurantes.size();
+            // C con suma compensada y fórmula sobre las columnas primitivas, repartidas entre núcleos
+            double C;
+            try (Metricas.Fase fase = Metricas.fase("puntuacion")) {
+                C = KernelPuntuacion.puntuar(tabla, m);
+            }
             System.out.println("C calculado: " + C);
 
-            for (Restaurante r : listaRestaurantes) {
-                double R = r.rating;
-                int v = r.numeroResenas;
-                r.puntuacionTotal = (v / (v + m)) * R + (m / (v + m)) * C;
+            try (Metricas.Fase fase = Metricas.fase("ordenamiento.puntuacion.motor" + motor)) {
+                if (motor == 2) {
+                    System.out.println("Ejecutando QuickSort paralelo por puntuación total...");
+                    QuickSortParalelo.ordenarPorPuntuacion(tabla, ForkJoinPool.commonPool());
+                } else if (motor == 3 || motor == 4) {
+                    // Mismo resultado que heapSort, con hueco móvil y progreso muestreado por otro hilo
+                    System.out.println("Ejecutando HeapSort iterativo por puntuación total...");
+                    try (Progreso progreso = new Progreso("HeapSort", tabla.size(), 500)) {
+                        HeapSortIterativo.ordenar(tabla, motor == 3 ? 2 : 4, progreso);
+                    }
+                } else if (motor == 5) {
+                    System.out.println("Ejecutando QuickSort 3 vías por puntuación total...");
+                    QuickSort3Vias.ordenarPorPuntuacion(tabla);
+                } else if (motor == 6) {
+                    // O(n): pasadas por dígitos sobre los bits del double
+                    System.out.println("Ejecutando Radix por puntuación total...");
+                    RadixSort.ordenarPorPuntuacion(tabla);
+                } else {
+                    // Ordenar por puntuacionTotal con HeapSort
+                    System.out.println("Ejecutando HeapSort por puntuación total...");
+                    heapSort(tabla);
+                }
             }
 
-            // Ordenar por puntuacionTotal con HeapSort
-            System.out.println("Ejecutando HeapSort por puntuación total...");
-            heapSort(listaRestaurantes);
-
             long t1 = System.nanoTime();
             double tiempoSeg = (t1 - t0) / 1_000_000_000.0;
-            System.out.printf("HeapSort completado en %.4f segundos\n", tiempoSeg);
+            System.out.printf("Ordenamiento por puntuación (motor %d) completado en %.4f segundos\n", motor, tiempoSeg);
 
             // Escribir archivo final (conserva duplicados en el archivo)
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(archivoSalida))) {
-                writer.write("Posición,Nombre,Rating,NumeroReseñas,PuntuaciónTotal\n");
-                for (int i = 0; i < listaRestaurantes.size(); i++) {
-                    Restaurante r = listaRestaurantes.get(i);
-                    writer.write(String.format("%d,%s,%.2f,%d,%.4f\n",
-                            i + 1, r.nombre, r.rating, r.numeroResenas, r.puntuacionTotal));
-                }
+            huboError |= !escribirRanking(tabla, archivoSalida);
+            // Imprimir Top 20 únicos con puntuación
+            System.out.println("\n=== TOP 20 RESTAURANTES (por PuntuaciónTotal) ===");
+            imprimirTop20Unicos(tabla, true);
+
+        } else if (opcion == 3) {
+            // Solo se necesita la cabeza del ranking: heap acotado de K elementos
+            int k = config.entero("k", "¿Cuántos restaurantes mostrar (K)? ", 20);
+            if (k <= 0) {
+                System.out.println("K debe ser mayor que 0.");
+                scanner.close();
+                return 1;
+            }
+
+            RestauranteTable tabla;
+            try (Metricas.Fase fase = Metricas.fase("carga")) {
+                tabla = cargarTabla(inputStream, 0);
+            } catch (IOException e) {
+                System.err.println("Error leyendo " + nombreArchivoEntrada + ": " + e.getMessage());
+                return 1;
+            }
+            if (tabla.size() == 0) {
+                System.out.println("No se cargaron registros. Abortando.");
+                return 1;
+            }
+
+            long t0 = System.nanoTime();
+            // Una sola pasada: calcula la puntuación de cada fila y la ofrece al heap
+            int[] top;
+            try (Metricas.Fase fase = Metricas.fase("topK")) {
+                top = TopK.topPorPuntuacion(tabla, k, m);
+            }
+            long t1 = System.nanoTime();
+            System.out.printf("Top-%d calculado en %.4f segundos (sin ordenar %d registros)\n", k,
+                    (t1 - t0) / 1_000_000_000.0, tabla.size());
+
+            System.out.println("\n=== TOP " + k + " RESTAURANTES (por PuntuaciónTotal) ===");
+            imprimirTopK(tabla, top);
+
+        } else if (opcion == 4) {
+            // Corridas acotadas por el presupuesto, volcadas a disco y mezcladas con un árbol de perdedores
+            long presupuestoMb = config.enteroLargo("memoria-mb", "Presupuesto de memoria por corrida (MB): ", 256);
+            if (config.interactivo())
+                System.out.println("Motor de corridas: 1. HeapSort iterativo (4-ario)  2. QuickSort 3 vías");
+            motor = config.entero("motor", "Seleccione el motor (1-2): ", 1);
+            if (presupuestoMb <= 0) {
+                System.out.println("El presupuesto debe ser mayor que 0.");
+                scanner.close();
+                return 1;
+            }
+            try {
+                inputStream.close(); // cada pasada abre la entrada de nuevo
+                String recurso = nombreArchivoEntrada;
+                OrdenamientoExterno.Estadisticas est = OrdenamientoExterno.ordenar(
+                        () -> config.abrirEntrada(Ordenar.class, recurso), archivoSalida, m,
+                        presupuestoMb << 20, motor);
                 System.out.println("Archivo final generado: " + archivoSalida);
+                System.out.println(est);
+            } catch (Exception e) {
+                System.err.println("Error en el ordenamiento externo: " + e.getMessage());
+                huboError = true;
+            }
+
+        } else if (opcion == 5) {
+            // Ranking incremental: cada delta cuesta O(log n); C solo se recalcula del todo al pasar la tolerancia
+            String archivoDeltas = config.palabra("deltas", "Archivo de deltas (Organization,Rating,NumberReview): ",
+                    null);
+            if (archivoDeltas == null)
+                throw new IllegalArgumentException("la opción 5 necesita --deltas=ruta");
+            double tolerancia = config.decimal("tolerancia", "Tolerancia de C antes de reescalar todo (ej. 0.001): ",
+                    0.001);
+
+            RestauranteTable tabla;
+            try (Metricas.Fase fase = Metricas.fase("carga")) {
+                tabla = cargarBinarioOCsv(config, new File(archivoQuickSortBinario), inputStream);
             } catch (IOException e) {
-                System.err.println("Error al escribir " + archivoSalida + ": " + e.getMessage());
+                System.err.println("Error leyendo los datos base: " + e.getMessage());
+                return 1;
             }
-            // Imprimir Top 20 únicos con puntuación
+
+            long t0 = System.nanoTime();
+            RankingIncremental ranking;
+            try (Metricas.Fase fase = Metricas.fase("rankingInicial")) {
+                ranking = new RankingIncremental(tabla, m, tolerancia);
+            }
+            long t1 = System.nanoTime();
+            System.out.printf("Ranking inicial de %d registros en %.4f segundos (C = %.6f)\n", ranking.size(),
+                    (t1 - t0) / 1_000_000_000.0, ranking.cUsado());
+
+            long aplicados;
+            try (Metricas.Fase fase = Metricas.fase("deltas");
+                    InputStream deltas = Files.newInputStream(Paths.get(archivoDeltas))) {
+                aplicados = ranking.aplicarDeltas(deltas);
+                Metricas.contar("deltasAplicados", aplicados);
+            } catch (IOException e) {
+                System.err.println("Error leyendo " + archivoDeltas + ": " + e.getMessage());
+                return 1;
+            }
+            long t2 = System.nanoTime();
+            System.out.printf("Deltas aplicados: %d (%d actualizaciones, %d nuevos) en %.4f segundos"
+                    + " (%.2f µs por delta)\n", aplicados, ranking.actualizaciones, ranking.inserciones,
+                    (t2 - t1) / 1_000_000_000.0, aplicados == 0 ? 0.0 : (t2 - t1) / 1000.0 / aplicados);
+            System.out.printf("C actual: %.6f | C de las puntuaciones: %.6f | Reescalados completos: %d\n",
+                    ranking.cActual(), ranking.cUsado(), ranking.reescalados - 1);
+
+            tabla.orden = ranking.filasEnOrden();
+            huboError |= !escribirRanking(tabla, archivoSalida);
+            System.out.println("\n=== TOP 20 RESTAURANTES (por PuntuaciónTotal) ===");
+            imprimirTop20Unicos(tabla, true);
+
+        } else if (opcion == 6) {
+            // Una sola lectura del CSV original; no se escriben archivos intermedios
+            System.out.println("Limpiando, puntuando y ordenando " + nombreArchivoEntrada + " en una pasada...");
+            PipelineFusionado pipeline = new PipelineFusionado();
+            RestauranteTable tabla;
+            try (Metricas.Fase fase = Metricas.fase("pipeline")) {
+                tabla = pipeline.ejecutar(inputStream, m);
+            } catch (IOException e) {
+                System.err.println("Error leyendo " + nombreArchivoEntrada + ": " + e.getMessage());
+                return 1;
+            }
+            if (tabla.size() == 0) {
+                System.out.println("No se cargaron registros. Abortando.");
+                return 1;
+            }
+            Metricas.contar("filasLeidas", tabla.size());
+            Metricas.contar("filasOmitidas", pipeline.filasOmitidas);
+            Metricas.contar("bytesLeidos", pipeline.bytesLeidos);
+            System.out.printf("Filas válidas: %d, omitidas: %d, leídos %.1f MB\n", tabla.size(),
+                    pipeline.filasOmitidas, pipeline.bytesLeidos / (1024.0 * 1024.0));
+            System.out.printf("C calculado: %.6f | Lectura y limpieza: %.4f s | Puntuación y orden: %.4f s\n",
+                    pipeline.cGlobal, pipeline.segundosLectura, pipeline.segundosOrden);
+
+            huboError |= !escribirRanking(tabla, archivoSalida);
             System.out.println("\n=== TOP 20 RESTAURANTES (por PuntuaciónTotal) ===");
-            imprimirTop20Unicos(listaRestaurantes, true);
+            imprimirTop20Unicos(tabla, true);
+
+        } else if (opcion == 7) {
+            RestauranteTable tabla;
+            try (Metricas.Fase fase = Metricas.fase("carga")) {
+                tabla = cargarTabla(inputStream, 0);
+            } catch (IOException e) {
+                System.err.println("Error leyendo " + nombreArchivoEntrada + ": " + e.getMessage());
+                return 1;
+            }
+            if (tabla.size() == 0) {
+                System.out.println("No se cargaron registros. Abortando.");
+                return 1;
+            }
+
+            long t0 = System.nanoTime();
+            // Ranking por local (con duplicados) y C de los locales
+            double C;
+            try (Metricas.Fase fase = Metricas.fase("rankingLocales")) {
+                C = KernelPuntuacion.puntuar(tabla, m);
+                tabla.reiniciarOrden();
+                QuickSort3Vias.ordenarPorPuntuacion(tabla);
+            }
+            long t1 = System.nanoTime();
+
+            // Ranking por marca: rating ponderado por reseñas y reseñas sumadas, puntuado con el mismo C
+            AgregadorCadenas cadenas;
+            RestauranteTable marcas;
+            try (Metricas.Fase fase = Metricas.fase("rankingCadenas")) {
+                cadenas = AgregadorCadenas.agrupar(tabla);
+                marcas = cadenas.marcas;
+                KernelPuntuacion.puntuar(marcas.numeroResenas, marcas.rating, marcas.puntuacionTotal, marcas.size(),
+                        m, C);
+                marcas.reiniciarOrden();
+                QuickSort3Vias.ordenarPorPuntuacion(marcas);
+            }
+            long t2 = System.nanoTime();
+            System.out.printf("Locales: %d en %.4f s | Marcas: %d (agrupadas y ordenadas en %.4f s) | C = %.6f\n",
+                    tabla.size(), (t1 - t0) / 1_000_000_000.0, marcas.size(), (t2 - t1) / 1_000_000_000.0, C);
+
+            huboError |= !escribirRanking(tabla, archivoSalida);
+            huboError |= !escribirCadenas(cadenas, archivoCadenas);
+            System.out.println("\n=== TOP 20 CADENAS (por PuntuaciónTotal) ===");
+            for (int i = 0; i < Math.min(20, marcas.size()); i++) {
+                int fila = marcas.filaEn(i);
+                System.out.printf("%2d. %-35s Score: %.4f  Reviews: %d  Rating: %.2f  Locales: %d\n", i + 1,
+                        marcas.nombre(fila), marcas.puntuacionTotal[fila], marcas.numeroResenas[fila],
+                        marcas.rating[fila], cadenas.locales[fila]);
+            }
+
+        } else if (opcion == 8) {
+            int puerto = config.entero("puerto", "Puerto: ", 8080);
+            int capacidadCache = config.entero("cache", "Capacidad de la caché (consultas): ", 10_000);
+
+            // Se carga y ordena una sola vez; las consultas se responden desde memoria
+            RestauranteTable tabla;
+            try (Metricas.Fase fase = Metricas.fase("carga")) {
+                tabla = cargarBinarioOCsv(config, new File(archivoQuickSortBinario), inputStream);
+            } catch (IOException e) {
+                System.err.println("Error leyendo los datos: " + e.getMessage());
+                return 1;
+            }
+            long t0 = System.nanoTime();
+            ServidorRanking servidor;
+            try (Metricas.Fase fase = Metricas.fase("ranking")) {
+                KernelPuntuacion.puntuar(tabla, m);
+                tabla.reiniciarOrden();
+                QuickSort3Vias.ordenarPorPuntuacion(tabla);
+                servidor = new ServidorRanking(tabla, capacidadCache);
+            }
+            System.out.printf("Ranking de %d registros e índice de nombres listos en %.4f segundos\n", tabla.size(),
+                    (System.nanoTime() - t0) / 1_000_000_000.0);
+            try {
+                servidor.iniciar(puerto);
+            } catch (IOException e) {
+                System.err.println("No se pudo abrir el puerto " + puerto + ": " + e.getMessage());
+                return 1;
+            }
+            System.out.println("Escuchando en http://127.0.0.1:" + puerto
+                    + "/  (rutas: /rank?nombre=, /pagina?desde=&hasta=, /top?k=&minResenas=, /estadisticas)");
+            int duracion = config.entero("duracion-s", null, 0);
+            // La fase cubre el tiempo atendiendo consultas (los hilos del servidor)
+            try (Metricas.Fase fase = Metricas.fase("servicio")) {
+                if (duracion > 0) {
+                    // Modo por lotes: atiende durante un tiempo fijo y termina
+                    try {
+                        Thread.sleep(duracion * 1000L);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                } else {
+                    System.out.print("Escriba 0 para detener: ");
+                    while (scanner.hasNextInt() && scanner.nextInt() != 0) {
+                        // Cualquier otro número se ignora
+                    }
+                }
+                servidor.detener();
+            }
+            System.out.println("Servidor detenido.");
+
+        } else if (opcion == 9) {
+            // Cada trabajador lee su rango de bytes del archivo: hace falta la ruta, no un stream
+            int fragmentos = config.entero("fragmentos", "Cantidad de procesos trabajadores: ",
+                    Runtime.getRuntime().availableProcessors());
+            long memoriaMb = config.enteroLargo("memoria-mb", null, 0);
+            Path entrada = config.archivoEntrada(Ordenar.class, nombreArchivoEntrada);
+            try {
+                inputStream.close();
+                if (entrada == null) {
+                    System.err.println("La opción 9 necesita " + nombreArchivoEntrada
+                            + " como archivo en disco: indique la ruta con --entrada=");
+                    return 1;
+                }
+                RankingFragmentado.Estadisticas est = RankingFragmentado.ordenar(entrada, archivoSalida, m,
+                        fragmentos, memoriaMb);
+                if (est.fragmentos > 1)
+                    System.out.println("Archivo final generado: " + archivoSalida);
+                System.out.println(est);
+            } catch (IOException e) {
+                System.err.println("Error en el ranking por fragmentos: " + e.getMessage());
+                return 1;
+            }
+
+        } else if (opcion == 10) {
+            RestauranteTable tabla;
+            try (Metricas.Fase fase = Metricas.fase("carga")) {
+                tabla = cargarTabla(inputStream, 0);
+            } catch (IOException e) {
+                System.err.println("Error leyendo " + nombreArchivoEntrada + ": " + e.getMessage());
+                return 1;
+            }
+            if (tabla.size() == 0) {
+                System.out.println("No se cargaron registros. Abortando.");
+                return 1;
+            }
+
+            // Se puntúa e indexa una sola vez; cada consulta intersecta mapas y ordena solo lo que pasa el filtro
+            long t0 = System.nanoTime();
+            IndiceFacetas indice;
+            try (Metricas.Fase fase = Metricas.fase("indices")) {
+                KernelPuntuacion.puntuar(tabla, m);
+                indice = IndiceFacetas.construir(tabla);
+            }
+            System.out.printf("Puntuación e índices de %d registros en %.4f segundos (índices: %.1f MB)\n",
+                    tabla.size(), (System.nanoTime() - t0) / 1_000_000_000.0, indice.bytesEnMemoria() / 1048576.0);
+            int k = config.entero("k", null, 20);
+            // Con el filtro en los argumentos (o por lotes) es una sola consulta; si no, se pregunta hasta salir
+            boolean unaConsulta = !config.interactivo() || config.tiene("min-resenas") || config.tiene("max-resenas")
+                    || config.tiene("min-rating") || config.tiene("max-rating");
+            while (true) {
+                int minResenas;
+                int maxResenas;
+                double minRating;
+                double maxRating;
+                try {
+                    minResenas = config.entero("min-resenas",
+                            unaConsulta ? "Reseñas mínimas: " : "\nReseñas mínimas (negativo para salir): ", 0);
+                    if (minResenas < 0)
+                        break;
+                    minRating = config.decimal("min-rating", "Rating mínimo: ", 0.0);
+                    maxResenas = config.entero("max-resenas", "Reseñas máximas (negativo = sin límite): ", -1);
+                    maxRating = config.decimal("max-rating", "Rating máximo (negativo = sin límite): ", -1.0);
+                } catch (NoSuchElementException e) {
+                    // Fin de la entrada o algo que no es un número: se sale como con un negativo
+                    System.out.println();
+                    break;
+                }
+                if (maxResenas < 0)
+                    maxResenas = Integer.MAX_VALUE;
+                if (maxRating < 0)
+                    maxRating = Double.POSITIVE_INFINITY;
+
+                long c0 = System.nanoTime();
+                MapaBits filas = indice.filtrar(minResenas, maxResenas, minRating, maxRating);
+                int[] top = indice.top(filas, k);
+                long c1 = System.nanoTime();
+                System.out.printf("%d de %d filas pasan el filtro | Top-%d en %.3f ms\n", filas.cardinalidad(),
+                        tabla.size(), k, (c1 - c0) / 1_000_000.0);
+                imprimirTopK(tabla, top);
+                if (!unaConsulta)
+                    continue;
+
+                // Una sola consulta: además el ranking filtrado completo
+                int[] ranking;
+                try (Metricas.Fase fase = Metricas.fase("rankingFiltrado")) {
+                    ranking = indice.ranking(filas);
+                }
+                System.out.printf("Ranking filtrado de %d filas en %.3f ms\n", ranking.length,
+                        (System.nanoTime() - c1) / 1_000_000.0);
+                huboError |= !escribirRanking(tabla, ranking, archivoSalida);
+                break;
+            }
 
         } else {
             System.out.println("Opción no válida.");
+            scanner.close();
+            return 1;
         }
 
         scanner.close();
+        return huboError ? 1 : 0;
+    }
+
+    // Escribe el ranking por marca (una fila por cadena, con su cantidad de locales); false si falló
+    static boolean escribirCadenas(AgregadorCadenas cadenas, String archivo) {
+        RestauranteTable marcas = cadenas.marcas;
+        try (EscritorCSV writer = new EscritorCSV(Paths.get(archivo), true)) {
+            writer.texto("Posición,Nombre,Rating,NumeroReseñas,PuntuaciónTotal,Locales\n");
+            for (int i = 0; i < marcas.size(); i++) {
+                int fila = marcas.filaEn(i);
+                escribirFila(writer, marcas, fila, i + 1);
+                writer.coma().decimal(marcas.puntuacionTotal[fila], 4).coma().entero(cadenas.locales[fila]).finLinea();
+            }
+            Metricas.contar("bytesEscritos", writer.bytesEscritos());
+            System.out.println("Archivo por cadena generado: " + archivo);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error al escribir " + archivo + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Escribe el ranking final en el orden de tabla.orden; false si falló
+    static boolean escribirRanking(RestauranteTable tabla, String archivoSalida) {
+        return escribirRanking(tabla, tabla.orden == null ? tabla.reiniciarOrden() : tabla.orden, archivoSalida);
+    }
+
+    /**
+     * Datos base de las opciones 5 y 8. Con --entrada se lee ese CSV (salvo que
+     * también venga --binario y el binario sea más nuevo, la regla de la opción
+     * 2); sin --entrada, el binario de la opción 1 si existe, si no el CSV.
+     */
+    private static RestauranteTable cargarBinarioOCsv(Configuracion config, File binario, InputStream entrada)
+            throws IOException {
+        boolean usarBinario = binario.exists() && (!config.tiene("entrada") || (config.tiene("binario")
+                && binario.lastModified() >= config.ruta("entrada", null).toFile().lastModified()));
+        if (!usarBinario)
+            return cargarTabla(entrada, 0);
+        entrada.close();
+        System.out.println("Datos base: " + binario);
+        RestauranteTable tabla = FormatoBinario.leer(binario.toPath());
+        Metricas.contar("bytesLeidos", binario.length());
+        Metricas.contar("filasLeidas", tabla.size());
+        return tabla;
+    }
+
+    // Escribe las filas indicadas, en ese orden (por ejemplo un ranking filtrado)
+    @SuppressWarnings("try")
+    static boolean escribirRanking(RestauranteTable tabla, int[] filas, String archivoSalida) {
+        try (Metricas.Fase fase = Metricas.fase("escritura");
+                EscritorCSV writer = new EscritorCSV(Paths.get(archivoSalida), true)) {
+            writer.texto("Posición,Nombre,Rating,NumeroReseñas,PuntuaciónTotal\n");
+            for (int i = 0; i < filas.length; i++) {
+                int fila = filas[i];
+                escribirFila(writer, tabla, fila, i + 1);
+                writer.coma().decimal(tabla.puntuacionTotal[fila], 4).finLinea();
+            }
+            Metricas.contar("bytesEscritos", writer.bytesEscritos());
+            System.out.println("Archivo final generado: " + archivoSalida);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error al escribir " + archivoSalida + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Posición,Nombre,Rating,NumeroReseñas (mismo formato que "%d,%s,%.2f,%d"), sin fin de línea
+    static void escribirFila(EscritorCSV writer, RestauranteTable tabla, int fila, long posicion) throws IOException {
+        int id = tabla.nombreId[fila];
+        writer.entero(posicion).coma().campo(tabla.bytesNombres(), tabla.inicioNombre(id), tabla.largoNombre(id))
+                .coma().decimal(tabla.rating[fila], 2).coma().entero(tabla.numeroResenas[fila]);
     }
 
     public static void heapSort(ArrayList<Restaurante> lista) {
@@ -316,6 +870,35 @@ public class Ordenar {
         return indiceAleatorio;
     }
 
+    /**
+     * Carga un CSV con las columnas Nombre,Rating,NumeroReseñas a partir de
+     * 'columnaNombre' usando el lector por streaming (sin split ni Strings por
+     * línea). Las líneas mal formadas se ignoran.
+     */
+    public static RestauranteTable cargarTabla(InputStream entrada, int columnaNombre) throws IOException {
+        RestauranteTable tabla = new RestauranteTable(1_000_000);
+        long malformadas = 0;
+        try (LectorCSV lector = new LectorCSV(entrada, columnaNombre + 3)) {
+            lector.siguienteLinea(); // Saltamos la cabecera
+            while (lector.siguienteLinea()) {
+                try {
+                    double rating = lector.decimal(columnaNombre + 1);
+                    int numeroResenas = lector.entero(columnaNombre + 2);
+                    lector.quitarComillas(columnaNombre);
+                    tabla.agregar(lector.buffer(), lector.inicio(columnaNombre), lector.largo(columnaNombre),
+                            rating, numeroResenas);
+                } catch (NumberFormatException e) {
+                    // Ignorar líneas mal formadas (solo se cuentan para el reporte)
+                    malformadas++;
+                }
+            }
+            Metricas.contar("bytesLeidos", lector.bytesLeidos());
+        }
+        Metricas.contar("filasLeidas", tabla.size());
+        Metricas.contar("filasMalformadas", malformadas);
+        return tabla;
+    }
+
     // Clase para obtener el promedio de los ratings y asi obtener una C (Parte de
     // la formula) con la que trabajar
     public static double calcularRatingPromedio(String archivoOriginal) {
@@ -442,4 +1025,185 @@ public class Ordenar {
         }
     }
 
+
+    // ===== Versiones sobre RestauranteTable =====
+    // Mismos algoritmos que arriba, pero en lugar de mover objetos Restaurante
+    // ordenan la permutación 'orden' comparando las columnas primitivas.
+
+    public static void heapSort(RestauranteTable tabla) {
+        int[] orden = tabla.orden == null ? tabla.reiniciarOrden() : tabla.orden;
+        int n = orden.length;
+
+        // Construir un Min-Heap (el elemento más pequeño en la raíz)
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            heapify(tabla, n, i);
+        }
+
+        // Extraer elementos (el más pequeño) uno por uno
+        for (int i = n - 1; i > 0; i--) {
+            cambio(orden, 0, i);
+
+            if (i % 1000 == 0) {
+                System.out.printf("HeapSort: Re-balanceando heap... %d/%d\r", (n - i), n);
+            }
+
+            heapify(tabla, i, 0);
+        }
+        System.out.println("\nHeapSort completado.");
+    }
+
+    public static void heapify(RestauranteTable tabla, int n, int i) {
+        int[] orden = tabla.orden;
+        double[] puntuacion = tabla.puntuacionTotal;
+        int menor = i;
+        int izq = 2 * i + 1;
+        int der = 2 * i + 2;
+        if (Metricas.CONTAR)
+            Metricas.COMPARACIONES.add((izq < n ? 1 : 0) + (der < n ? 1 : 0));
+
+        if (izq < n && puntuacion[orden[izq]] < puntuacion[orden[menor]]) {
+            menor = izq;
+        }
+        if (der < n && puntuacion[orden[der]] < puntuacion[orden[menor]]) {
+            menor = der;
+        }
+        if (menor != i) {
+            cambio(orden, i, menor);
+            heapify(tabla, n, menor);
+        }
+    }
+
+    public static void quickSort(RestauranteTable tabla) {
+        System.out.println("\nIniciando QuickSort...");
+        if (tabla.orden == null)
+            tabla.reiniciarOrden();
+        recursividad(tabla, 0, tabla.size() - 1);
+        System.out.println("\nQuickSort completado.");
+    }
+
+    // Partición Hoare por puntuacionTotal (descendente) sobre la permutación
+    public static int compara(RestauranteTable tabla, int inicio, int fin) {
+        int[] orden = tabla.orden;
+        double[] puntuacion = tabla.puntuacionTotal;
+        double pivoteValor = puntuacion[orden[pivoteAleatorio(inicio, fin)]];
+        int i = inicio;
+        int j = fin;
+        while (i <= j) {
+            while (i <= fin && puntuacion[orden[i]] > pivoteValor)
+                i++;
+            while (j >= inicio && puntuacion[orden[j]] < pivoteValor)
+                j--;
+            if (i <= j) {
+                cambio(orden, i, j);
+                i++;
+                j--;
+            }
+        }
+        // Cada posición que recorrieron i y j se comparó una vez con el pivote
+        if (Metricas.CONTAR)
+            Metricas.COMPARACIONES.add((long) (i - inicio) + (fin - j));
+        return i;
+    }
+
+    public static void recursividad(RestauranteTable tabla, int inicio, int fin) {
+        if (inicio < fin) {
+            int i = compara(tabla, inicio, fin);
+            if (inicio < i - 1)
+                recursividad(tabla, inicio, i - 1);
+            if (i < fin)
+                recursividad(tabla, i, fin);
+        }
+    }
+
+    // Partición Hoare por numeroResenas (descendente) sobre la permutación
+    public static int comparaReviews(RestauranteTable tabla, int inicio, int fin) {
+        int[] orden = tabla.orden;
+        int[] resenas = tabla.numeroResenas;
+        int pivoteValor = resenas[orden[pivoteAleatorio(inicio, fin)]];
+        int i = inicio;
+        int j = fin;
+        while (i <= j) {
+            while (i <= fin && resenas[orden[i]] > pivoteValor)
+                i++;
+            while (j >= inicio && resenas[orden[j]] < pivoteValor)
+                j--;
+            if (i <= j) {
+                cambio(orden, i, j);
+                i++;
+                j--;
+            }
+        }
+        // Cada posición que recorrieron i y j se comparó una vez con el pivote
+        if (Metricas.CONTAR)
+            Metricas.COMPARACIONES.add((long) (i - inicio) + (fin - j));
+        return i;
+    }
+
+    public static void recursividadReviews(RestauranteTable tabla, int inicio, int fin) {
+        if (inicio < fin) {
+            int i = comparaReviews(tabla, inicio, fin);
+            if (inicio < i - 1)
+                recursividadReviews(tabla, inicio, i - 1);
+            if (i < fin)
+                recursividadReviews(tabla, i, fin);
+        }
+    }
+
+    // Intercambia dos posiciones de la permutación
+    public static void cambio(int[] orden, int i, int j) {
+        if (Metricas.CONTAR)
+            Metricas.INTERCAMBIOS.increment();
+        int temp = orden[i];
+        orden[i] = orden[j];
+        orden[j] = temp;
+    }
+
+    // ThreadLocalRandom en vez de Math.random: el QuickSort paralelo llama a
+    // este método desde varios hilos y Math.random comparte un solo generador
+    public static int pivoteAleatorio(int inicio, int fin) {
+        return ThreadLocalRandom.current().nextInt(inicio, fin + 1);
+    }
+
+    // Imprime filas ya seleccionadas (por ejemplo las de TopK), con el mismo
+    // formato que imprimirTop20Unicos por puntuación
+    public static void imprimirTopK(RestauranteTable tabla, int[] filas) {
+        for (int p = 0; p < filas.length; p++) {
+            int fila = filas[p];
+            String nombre = tabla.nombre(fila);
+            System.out.printf("%2d. %-35s Score: %.4f  Reviews: %d  Rating: %.2f\n", p + 1,
+                    (nombre.length() > 32 ? nombre.substring(0, 32) + ".." : nombre),
+                    tabla.puntuacionTotal[fila], tabla.numeroResenas[fila], tabla.rating[fila]);
+        }
+    }
+
+    // Top 20 sin nombres repetidos recorriendo la tabla en el orden actual.
+    // Como los nombres iguales comparten id en el diccionario, solo se
+    // normaliza (trim + minúsculas) un String por nombre mostrado o descartado.
+    public static void imprimirTop20Unicos(RestauranteTable tabla, boolean porPuntuacion) {
+        ArrayList<String> nombresVistosLocal = new ArrayList<>(20);
+        int mostrados = 0;
+        for (int p = 0; p < tabla.size(); p++) {
+            int fila = tabla.filaEn(p);
+            String nombre = tabla.nombre(fila);
+            String nombreNormalizadoLocal = nombre.trim().toLowerCase();
+            if (nombresVistosLocal.contains(nombreNormalizadoLocal))
+                continue;
+
+            nombresVistosLocal.add(nombreNormalizadoLocal);
+            mostrados++;
+            if (porPuntuacion) {
+                System.out.printf("%2d. %-35s Score: %.4f  Reviews: %d  Rating: %.2f\n", mostrados,
+                        (nombre.length() > 32 ? nombre.substring(0, 32) + ".." : nombre),
+                        tabla.puntuacionTotal[fila], tabla.numeroResenas[fila], tabla.rating[fila]);
+            } else {
+                System.out.printf("%2d. %-40s Reviews: %d  Rating: %.2f\n", mostrados,
+                        (nombre.length() > 37 ? nombre.substring(0, 37) + ".." : nombre),
+                        tabla.numeroResenas[fila], tabla.rating[fila]);
+            }
+
+            if (mostrados >= 20)
+                break;
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Limpieza + puntuación + ranking en una sola pasada sobre yelp_database.csv.
+ *
+ * El flujo normal lee y escribe el disco tres veces (limpiarDatos ->
+ * datos_procesados.csv -> opción 1 -> archivo QuickSort -> opción 2), más la
+ * pasada aparte de calcularRatingPromedio. Aquí cada línea se valida igual
+ * que en limpiarDatos (columnas 3, 5 y 6) y va directo a una RestauranteTable;
+ * los ratings quedan en la misma tabla. Después se calcula C y la puntuación
+ * con KernelPuntuacion y se ordena en memoria: el único archivo que se
+ * escribe es el ranking final.
+ */
+public class PipelineFusionado {
+    // Estadísticas de la última ejecución
+    public long filasOmitidas;
+    public long bytesLeidos;
+    public double cGlobal;
+    public double segundosLectura;
+    public double segundosOrden;
+
+    /**
+     * Devuelve la tabla con puntuacionTotal calculada y 'orden' de mayor a
+     * menor puntuación.
+     */
+    public RestauranteTable ejecutar(InputStream yelp, double m) throws IOException {
+        long t0 = System.nanoTime();
+        RestauranteTable tabla = new RestauranteTable(1 << 16);
+        try (LectorCSV lector = new LectorCSV(yelp, 7)) {
+            lector.siguienteLinea(); // cabecera
+            while (lector.siguienteLinea()) {
+                try {
+                    // Mismas reglas que limpiarDatos: si rating o reseñas no son números se omite
+                    double rating = lector.decimal(5);
+                    int numeroResenas = lector.entero(6);
+                    lector.quitarComillas(3);
+                    tabla.agregar(lector.buffer(), lector.inicio(3), lector.largo(3), rating, numeroResenas);
+                } catch (NumberFormatException e) {
+                    filasOmitidas++;
+                }
+            }
+            bytesLeidos = lector.bytesLeidos();
+        }
+        segundosLectura = (System.nanoTime() - t0) / 1e9;
+
+        t0 = System.nanoTime();
+        cGlobal = KernelPuntuacion.puntuar(tabla, m);
+        tabla.reiniciarOrden();
+        QuickSort3Vias.ordenarPorPuntuacion(tabla);
+        segundosOrden = (System.nanoTime() - t0) / 1e9;
+        return tabla;
+    }
+}
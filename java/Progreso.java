@@ -0,0 +1,50 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reporte de progreso desacoplado del bucle caliente.
+ * El algoritmo solo publica un contador (lazySet, sin barreras caras) y un
+ * hilo aparte lo muestrea cada cierto tiempo e imprime la línea con '\r'.
+ * Así el printf ya no está dentro del bucle de extracción del HeapSort.
+ */
+public class Progreso implements AutoCloseable {
+    private final String etiqueta;
+    private final long total;
+    private final AtomicLong hecho = new AtomicLong();
+    private final ScheduledExecutorService muestreo;
+
+    public Progreso(String etiqueta, long total, long periodoMs) {
+        this.etiqueta = etiqueta;
+        this.total = total;
+        this.muestreo = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "progreso-" + etiqueta);
+            t.setDaemon(true);
+            return t;
+        });
+        muestreo.scheduleAtFixedRate(this::imprimir, periodoMs, periodoMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Llamado desde el bucle caliente: solo guarda el valor
+    public void actualizar(long valor) {
+        hecho.lazySet(valor);
+    }
+
+    private void imprimir() {
+        System.out.printf("%s... %d/%d\r", etiqueta, hecho.get(), total);
+    }
+
+    @Override
+    public void close() {
+        muestreo.shutdownNow();
+        try {
+            muestreo.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        hecho.set(total);
+        imprimir();
+        System.out.println();
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * QuickSort con partición de 3 vías (bandera holandesa) sobre la permutación
+ * de una RestauranteTable, en orden descendente.
+ *
+ * Pensado para el número de reseñas, donde miles de filas comparten el mismo
+ * valor (0 a 5 reseñas): todos los iguales al pivote quedan juntos en el medio
+ * y no se vuelven a tocar, así los datos con muchos duplicados se ordenan más
+ * rápido en lugar de más lento.
+ *  - Pivote: mediana de tres, o "ninther" (mediana de tres medianas) en
+ *    rangos grandes.
+ *  - Se hace recursión solo sobre el lado más chico y el más grande se sigue
+ *    en el mismo bucle (eliminación de la llamada de cola): la profundidad
+ *    queda acotada a O(log n) y no hay riesgo de StackOverflowError.
+ *  - Las claves se copian a un arreglo contiguo que se mueve junto con la
+ *    permutación, para que las comparaciones no salten por memoria.
+ */
+public class QuickSort3Vias {
+    static final int UMBRAL_INSERCION = 24;
+    static final int UMBRAL_NINTHER = 128;
+
+    public static void ordenarPorResenas(RestauranteTable tabla) {
+        int[] orden = tabla.orden == null ? tabla.reiniciarOrden() : tabla.orden;
+        int[] clave = new int[orden.length];
+        for (int p = 0; p < orden.length; p++)
+            clave[p] = tabla.numeroResenas[orden[p]];
+        ordenar(clave, orden, 0, orden.length - 1);
+    }
+
+    public static void ordenarPorPuntuacion(RestauranteTable tabla) {
+        int[] orden = tabla.orden == null ? tabla.reiniciarOrden() : tabla.orden;
+        double[] clave = new double[orden.length];
+        for (int p = 0; p < orden.length; p++)
+            clave[p] = tabla.puntuacionTotal[orden[p]];
+        ordenar(clave, orden, 0, orden.length - 1);
+    }
+
+    // ===== Claves enteras (número de reseñas) =====
+
+    static void ordenar(int[] clave, int[] orden, int inicio, int fin) {
+        while (fin - inicio >= UMBRAL_INSERCION) {
+            int pivote = clave[posicionPivote(clave, inicio, fin)];
+
+            // Invariante: [inicio, lt) > pivote, [lt, i) == pivote, (gt, fin] < pivote
+            int lt = inicio;
+            int i = inicio;
+            int gt = fin;
+            while (i <= gt) {
+                int v = clave[i];
+                if (v > pivote) {
+                    cambio(clave, orden, lt++, i++);
+                } else if (v < pivote) {
+                    cambio(clave, orden, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (Metricas.CONTAR) {
+                // Cada fila del rango se comparó una vez; las mayores y las menores se movieron
+                Metricas.COMPARACIONES.add(fin - inicio + 1);
+                Metricas.INTERCAMBIOS.add((long) (lt - inicio) + (fin - gt));
+            }
+
+            // Recursión en el lado más chico, el más grande sigue en el bucle
+            if (lt - inicio < fin - gt) {
+                ordenar(clave, orden, inicio, lt - 1);
+                inicio = gt + 1;
+            } else {
+                ordenar(clave, orden, gt + 1, fin);
+                fin = lt - 1;
+            }
+        }
+        insercion(clave, orden, inicio, fin);
+    }
+
+    private static int posicionPivote(int[] clave, int inicio, int fin) {
+        int medio = (inicio + fin) >>> 1;
+        if (fin - inicio < UMBRAL_NINTHER)
+            return mediana(clave, inicio, medio, fin);
+        int paso = (fin - inicio) / 8;
+        int a = mediana(clave, inicio, inicio + paso, inicio + 2 * paso);
+        int b = mediana(clave, medio - paso, medio, medio + paso);
+        int c = mediana(clave, fin - 2 * paso, fin - paso, fin);
+        return mediana(clave, a, b, c);
+    }
+
+    private static int mediana(int[] clave, int a, int b, int c) {
+        int va = clave[a], vb = clave[b], vc = clave[c];
+        if (va < vb)
+            return vb < vc ? b : (va < vc ? c : a);
+        return va < vc ? a : (vb < vc ? c : b);
+    }
+
+    private static void insercion(int[] clave, int[] orden, int inicio, int fin) {
+        long movidas = 0;
+        for (int i = inicio + 1; i <= fin; i++) {
+            int v = clave[i];
+            int f = orden[i];
+            int j = i - 1;
+            while (j >= inicio && clave[j] < v) {
+                clave[j + 1] = clave[j];
+                orden[j + 1] = orden[j];
+                j--;
+            }
+            clave[j + 1] = v;
+            orden[j + 1] = f;
+            movidas += i - 1 - j;
+        }
+        if (Metricas.CONTAR && fin > inicio) {
+            // Una comparación por fila movida más la que detiene cada inserción
+            Metricas.COMPARACIONES.add(movidas + (fin - inicio));
+            Metricas.INTERCAMBIOS.add(movidas);
+        }
+    }
+
+    private static void cambio(int[] clave, int[] orden, int i, int j) {
+        int c = clave[i];
+        clave[i] = clave[j];
+        clave[j] = c;
+        int o = orden[i];
+        orden[i] = orden[j];
+        orden[j] = o;
+    }
+
+    // ===== Claves double (puntuación total) =====
+
+    static void ordenar(double[] clave, int[] orden, int inicio, int fin) {
+        while (fin - inicio >= UMBRAL_INSERCION) {
+            double pivote = clave[posicionPivote(clave, inicio, fin)];
+
+            int lt = inicio;
+            int i = inicio;
+            int gt = fin;
+            while (i <= gt) {
+                double v = clave[i];
+                if (v > pivote) {
+                    cambio(clave, orden, lt++, i++);
+                } else if (v < pivote) {
+                    cambio(clave, orden, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (Metricas.CONTAR) {
+                // Cada fila del rango se comparó una vez; las mayores y las menores se movieron
+                Metricas.COMPARACIONES.add(fin - inicio + 1);
+                Metricas.INTERCAMBIOS.add((long) (lt - inicio) + (fin - gt));
+            }
+
+            if (lt - inicio < fin - gt) {
+                ordenar(clave, orden, inicio, lt - 1);
+                inicio = gt + 1;
+            } else {
+                ordenar(clave, orden, gt + 1, fin);
+                fin = lt - 1;
+            }
+        }
+        insercion(clave, orden, inicio, fin);
+    }
+
+    private static int posicionPivote(double[] clave, int inicio, int fin) {
+        int medio = (inicio + fin) >>> 1;
+        if (fin - inicio < UMBRAL_NINTHER)
+            return mediana(clave, inicio, medio, fin);
+        int paso = (fin - inicio) / 8;
+        int a = mediana(clave, inicio, inicio + paso, inicio + 2 * paso);
+        int b = mediana(clave, medio - paso, medio, medio + paso);
+        int c = mediana(clave, fin - 2 * paso, fin - paso, fin);
+        return mediana(clave, a, b, c);
+    }
+
+    private static int mediana(double[] clave, int a, int b, int c) {
+        double va = clave[a], vb = clave[b], vc = clave[c];
+        if (va < vb)
+            return vb < vc ? b : (va < vc ? c : a);
+        return va < vc ? a : (vb < vc ? c : b);
+    }
+
+    private static void insercion(double[] clave, int[] orden, int inicio, int fin) {
+        long movidas = 0;
+        for (int i = inicio + 1; i <= fin; i++) {
+            double v = clave[i];
+            int f = orden[i];
+            int j = i - 1;
+            while (j >= inicio && clave[j] < v) {
+                clave[j + 1] = clave[j];
+                orden[j + 1] = orden[j];
+                j--;
+            }
+            clave[j + 1] = v;
+            orden[j + 1] = f;
+            movidas += i - 1 - j;
+        }
+        if (Metricas.CONTAR && fin > inicio) {
+            // Una comparación por fila movida más la que detiene cada inserción
+            Metricas.COMPARACIONES.add(movidas + (fin - inicio));
+            Metricas.INTERCAMBIOS.add(movidas);
+        }
+    }
+
+    private static void cambio(double[] clave, int[] orden, int i, int j) {
+        double c = clave[i];
+        clave[i] = clave[j];
+        clave[j] = c;
+        int o = orden[i];
+        orden[i] = orden[j];
+        orden[j] = o;
+    }
+}
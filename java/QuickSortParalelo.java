@@ -0,0 +1,127 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * QuickSort paralelo con Fork/Join sobre una RestauranteTable.
+ * Usa las mismas particiones Hoare de Ordenar (comparaReviews / compara):
+ * cada partición deja dos mitades independientes que se ordenan como
+ * subtareas mientras sean grandes; por debajo del umbral se sigue en el mismo
+ * hilo y los rangos muy pequeños se terminan con ordenamiento por inserción.
+ */
+public class QuickSortParalelo {
+    // Por debajo de este tamaño no vale la pena crear una subtarea
+    static final int UMBRAL_PARALELO = 8_192;
+    // Por debajo de este tamaño se usa inserción en lugar de particionar
+    static final int UMBRAL_INSERCION = 24;
+
+    public static void ordenarPorResenas(RestauranteTable tabla, ForkJoinPool pool) {
+        if (tabla.orden == null)
+            tabla.reiniciarOrden();
+        pool.invoke(new TareaOrden(tabla, 0, tabla.size() - 1, true));
+    }
+
+    public static void ordenarPorPuntuacion(RestauranteTable tabla, ForkJoinPool pool) {
+        if (tabla.orden == null)
+            tabla.reiniciarOrden();
+        pool.invoke(new TareaOrden(tabla, 0, tabla.size() - 1, false));
+    }
+
+    /**
+     * Referencia para comparar: Arrays.parallelSort de la librería estándar.
+     * Cada fila se empaqueta en un long (reseñas invertidas en la parte alta,
+     * índice de fila en la baja) para ordenar primitivos sin comparador.
+     * Como el índice desempata, las filas con igual número de reseñas
+     * conservan el orden de entrada.
+     */
+    public static void ordenarPorResenasParallelSort(RestauranteTable tabla) {
+        int n = tabla.size();
+        int[] resenas = tabla.numeroResenas;
+        long[] claves = new long[n];
+        for (int fila = 0; fila < n; fila++) {
+            // ~v invierte el orden (mayor número de reseñas primero)
+            claves[fila] = ((long) ~resenas[fila] << 32) | fila;
+        }
+        Arrays.parallelSort(claves);
+        int[] orden = tabla.orden == null || tabla.orden.length != n ? new int[n] : tabla.orden;
+        for (int p = 0; p < n; p++)
+            orden[p] = (int) claves[p];
+        tabla.orden = orden;
+    }
+
+    private static class TareaOrden extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final RestauranteTable tabla;
+        private final int inicio;
+        private final int fin;
+        private final boolean porResenas;
+
+        TareaOrden(RestauranteTable tabla, int inicio, int fin, boolean porResenas) {
+            this.tabla = tabla;
+            this.inicio = inicio;
+            this.fin = fin;
+            this.porResenas = porResenas;
+        }
+
+        @Override
+        protected void compute() {
+            ordenar(inicio, fin);
+        }
+
+        private void ordenar(int inicio, int fin) {
+            if (fin - inicio < UMBRAL_INSERCION) {
+                insercion(tabla, inicio, fin, porResenas);
+                return;
+            }
+            int i = porResenas ? Ordenar.comparaReviews(tabla, inicio, fin) : Ordenar.compara(tabla, inicio, fin);
+
+            // Si el rango es grande, cada mitad se ordena como subtarea independiente
+            if (fin - inicio >= UMBRAL_PARALELO) {
+                invokeAll(new TareaOrden(tabla, inicio, i - 1, porResenas),
+                        new TareaOrden(tabla, i, fin, porResenas));
+            } else {
+                if (inicio < i - 1)
+                    ordenar(inicio, i - 1);
+                if (i < fin)
+                    ordenar(i, fin);
+            }
+        }
+    }
+
+    // Inserción descendente sobre la permutación para rangos pequeños
+    static void insercion(RestauranteTable tabla, int inicio, int fin, boolean porResenas) {
+        int[] orden = tabla.orden;
+        long movidas = 0;
+        if (porResenas) {
+            int[] resenas = tabla.numeroResenas;
+            for (int i = inicio + 1; i <= fin; i++) {
+                int fila = orden[i];
+                int valor = resenas[fila];
+                int j = i - 1;
+                while (j >= inicio && resenas[orden[j]] < valor) {
+                    orden[j + 1] = orden[j];
+                    j--;
+                }
+                orden[j + 1] = fila;
+                movidas += i - 1 - j;
+            }
+        } else {
+            double[] puntuacion = tabla.puntuacionTotal;
+            for (int i = inicio + 1; i <= fin; i++) {
+                int fila = orden[i];
+                double valor = puntuacion[fila];
+                int j = i - 1;
+                while (j >= inicio && puntuacion[orden[j]] < valor) {
+                    orden[j + 1] = orden[j];
+                    j--;
+                }
+                orden[j + 1] = fila;
+                movidas += i - 1 - j;
+            }
+        }
+        if (Metricas.CONTAR && fin > inicio) {
+            Metricas.COMPARACIONES.add(movidas + (fin - inicio));
+            Metricas.INTERCAMBIOS.add(movidas);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.stream.IntStream;
+
+/**
+ * Ordenamiento por dígitos (LSD radix) de la permutación de una
+ * RestauranteTable, en orden descendente y estable: a igualdad de clave las
+ * filas conservan el orden que traían.
+ *
+ *  - Reseñas: la clave int se transforma para que el orden sin signo
+ *    ascendente sea el descendente de numeroResenas. Si todas las claves
+ *    caben en 16 bits se hace una sola pasada (ordenamiento por conteo con
+ *    histograma); si no, pasadas de 11 bits.
+ *  - Puntuación: el patrón de bits IEEE-754 del double se transforma igual
+ *    (positivos con el signo invertido, negativos con todos los bits
+ *    invertidos), así el orden de los enteros es el de los doubles. O(n) en
+ *    lugar del O(n log n) de heapSort.
+ *  - Solo se hacen las pasadas de los dígitos que varían entre las claves
+ *    (ej. las puntuaciones entre 1 y 5 comparten signo y casi todo el
+ *    exponente).
+ *  - Cada pasada divide el arreglo en partes: el histograma de cada parte se
+ *    cuenta en paralelo, y con los acumulados por (dígito, parte) cada parte
+ *    reparte sus filas en paralelo sin perder la estabilidad.
+ */
+public class RadixSort {
+    static final int BITS_DIGITO = 11;
+    // Hasta este ancho de clave alcanza una sola pasada de conteo
+    static final int MAX_BITS_CONTEO = 16;
+    // Filas mínimas por parte para repartir una pasada entre hilos
+    static final int FILAS_POR_PARTE = 1 << 16;
+
+    public static void ordenarPorResenas(RestauranteTable tabla) {
+        int[] orden = tabla.orden == null ? tabla.reiniciarOrden() : tabla.orden;
+        int n = orden.length;
+        if (n < 2)
+            return;
+        int[] resenas = tabla.numeroResenas;
+        int[] clave = new int[n];
+        int variacion = 0;
+        for (int p = 0; p < n; p++) {
+            // ~(v ^ MIN): el orden sin signo ascendente es el descendente de v
+            clave[p] = ~(resenas[orden[p]] ^ Integer.MIN_VALUE);
+            variacion |= clave[p] ^ clave[0];
+        }
+
+        int bits = 32 - Integer.numberOfLeadingZeros(variacion);
+        int digito = bits <= MAX_BITS_CONTEO ? Math.max(1, bits) : BITS_DIGITO;
+        int[] claveAux = new int[n];
+        int[] ordenAux = new int[n];
+        int[] ordenActual = orden;
+        for (int desplazamiento = 0; desplazamiento < bits; desplazamiento += digito) {
+            int mascara = (1 << Math.min(digito, bits - desplazamiento)) - 1;
+            if (((variacion >>> desplazamiento) & mascara) == 0)
+                continue; // dígito igual en todas las claves
+            pasada(clave, ordenActual, claveAux, ordenAux, desplazamiento, mascara);
+            int[] c = clave;
+            clave = claveAux;
+            claveAux = c;
+            int[] o = ordenActual;
+            ordenActual = ordenAux;
+            ordenAux = o;
+        }
+        if (ordenActual != orden)
+            System.arraycopy(ordenActual, 0, orden, 0, n);
+    }
+
+    public static void ordenarPorPuntuacion(RestauranteTable tabla) {
+        ordenarPorPuntuacion(tabla.puntuacionTotal, tabla.orden == null ? tabla.reiniciarOrden() : tabla.orden);
+    }
+
+    /**
+     * Ordena 'orden' (filas, no necesariamente todas) por puntuacion[fila],
+     * de mayor a menor y estable.
+     */
+    public static void ordenarPorPuntuacion(double[] puntuacion, int[] orden) {
+        int n = orden.length;
+        if (n < 2)
+            return;
+        long[] clave = new long[n];
+        long variacion = 0;
+        for (int p = 0; p < n; p++) {
+            long b = Double.doubleToRawLongBits(puntuacion[orden[p]]);
+            long ascendente = b < 0 ? ~b : b ^ Long.MIN_VALUE;
+            clave[p] = ~ascendente;
+            variacion |= clave[p] ^ clave[0];
+        }
+
+        int bits = 64 - Long.numberOfLeadingZeros(variacion);
+        long[] claveAux = new long[n];
+        int[] ordenAux = new int[n];
+        int[] ordenActual = orden;
+        for (int desplazamiento = 0; desplazamiento < bits; desplazamiento += BITS_DIGITO) {
+            int mascara = (1 << Math.min(BITS_DIGITO, bits - desplazamiento)) - 1;
+            if (((variacion >>> desplazamiento) & mascara) == 0)
+                continue;
+            pasada(clave, ordenActual, claveAux, ordenAux, desplazamiento, mascara);
+            long[] c = clave;
+            clave = claveAux;
+            claveAux = c;
+            int[] o = ordenActual;
+            ordenActual = ordenAux;
+            ordenAux = o;
+        }
+        if (ordenActual != orden)
+            System.arraycopy(ordenActual, 0, orden, 0, n);
+    }
+
+    private static int partes(int n) {
+        return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), n / FILAS_POR_PARTE));
+    }
+
+    // ===== Claves int =====
+
+    // Reparte (clave, orden) en (claveDestino, ordenDestino) según el dígito, de forma estable
+    private static void pasada(int[] clave, int[] orden, int[] claveDestino, int[] ordenDestino, int desplazamiento,
+            int mascara) {
+        int n = clave.length;
+        // Sin comparaciones: cada pasada mueve las n filas
+        if (Metricas.CONTAR)
+            Metricas.INTERCAMBIOS.add(n);
+        int partes = partes(n);
+        int[][] posicion = new int[partes][mascara + 1];
+        IntStream.range(0, partes).parallel().forEach(t -> {
+            int[] conteo = posicion[t];
+            for (int i = (int) ((long) n * t / partes), fin = (int) ((long) n * (t + 1) / partes); i < fin; i++)
+                conteo[(clave[i] >>> desplazamiento) & mascara]++;
+        });
+        acumular(posicion, mascara + 1);
+        IntStream.range(0, partes).parallel().forEach(t -> {
+            int[] siguiente = posicion[t];
+            for (int i = (int) ((long) n * t / partes), fin = (int) ((long) n * (t + 1) / partes); i < fin; i++) {
+                int q = siguiente[(clave[i] >>> desplazamiento) & mascara]++;
+                claveDestino[q] = clave[i];
+                ordenDestino[q] = orden[i];
+            }
+        });
+    }
+
+    // ===== Claves long (bits IEEE-754) =====
+
+    private static void pasada(long[] clave, int[] orden, long[] claveDestino, int[] ordenDestino,
+            int desplazamiento, int mascara) {
+        int n = clave.length;
+        // Sin comparaciones: cada pasada mueve las n filas
+        if (Metricas.CONTAR)
+            Metricas.INTERCAMBIOS.add(n);
+        int partes = partes(n);
+        int[][] posicion = new int[partes][mascara + 1];
+        IntStream.range(0, partes).parallel().forEach(t -> {
+            int[] conteo = posicion[t];
+            for (int i = (int) ((long) n * t / partes), fin = (int) ((long) n * (t + 1) / partes); i < fin; i++)
+                conteo[(int) (clave[i] >>> desplazamiento) & mascara]++;
+        });
+        acumular(posicion, mascara + 1);
+        IntStream.range(0, partes).parallel().forEach(t -> {
+            int[] siguiente = posicion[t];
+            for (int i = (int) ((long) n * t / partes), fin = (int) ((long) n * (t + 1) / partes); i < fin; i++) {
+                int q = siguiente[(int) (clave[i] >>> desplazamiento) & mascara]++;
+                claveDestino[q] = clave[i];
+                ordenDestino[q] = orden[i];
+            }
+        });
+    }
+
+    /**
+     * Convierte los histogramas por parte en la primera posición de destino de
+     * cada (dígito, parte): dígito por dígito y, dentro de cada uno, las partes
+     * en orden, así las filas de una parte anterior quedan antes (estable).
+     */
+    private static void acumular(int[][] posicion, int cubetas) {
+        int suma = 0;
+        for (int d = 0; d < cubetas; d++) {
+            for (int[] parte : posicion) {
+                int c = parte[d];
+                parte[d] = suma;
+                suma += c;
+            }
+        }
+    }
+}
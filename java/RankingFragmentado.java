@@ -0,0 +1,484 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Ranking por puntuación total repartido entre varios procesos (JVM) locales.
+ *
+ * Coordinador (Ordenar opción 9, --fragmentos=N):
+ *  1. Divide datos_procesados.csv en N rangos de bytes y lanza un trabajador
+ *     por rango. Cada uno empieza en la primera línea de su rango y lee las
+ *     líneas que empiezan antes del final, así que ninguna queda partida.
+ *  2. Cada trabajador informa dónde empezó y dónde terminó realmente. Si una
+ *     línea con un salto entre comillas cruzó el límite, el final de uno no
+ *     coincide con el inicio del siguiente y ese trabajador vuelve a leer su
+ *     fragmento desde el byte exacto, en el mismo proceso (sin arrancar otra
+ *     JVM).
+ *  3. C con la misma suma por bloques que KernelPuntuacion.promedio, así es
+ *     el mismo C bit a bit que en una sola JVM. Cada trabajador recibe en qué
+ *     fila global empieza, suma él mismo los bloques de TAM_BLOQUE filas que
+ *     caen enteros en su fragmento y devuelve esas sumas más las filas de los
+ *     bordes; el coordinador solo suma los bloques partidos entre fragmentos.
+ *  4. Con C cada trabajador puntúa su fragmento, lo ordena (RadixSort,
+ *     estable) y lo escribe en el formato de las corridas de
+ *     OrdenamientoExterno.
+ *  5. Mezcla de N vías de los parciales directo al CSV final. A igual
+ *     puntuación gana el fragmento anterior, y dentro de un fragmento se
+ *     conserva el orden del archivo: el resultado es idéntico al de
+ *     --fragmentos=1 (todo en este proceso con el mismo orden estable).
+ *
+ * Trabajador (java RankingFragmentado --entrada= --desde= --hasta= --parcial=):
+ * se comunica por stdin/stdout con líneas de texto. No hay orden de abortar:
+ * al terminar (o al fallar) el coordinador destruye los procesos, y un stdin
+ * que se cierra antes de tiempo hace que el trabajador termine.
+ *   -> PARCIAL filas malformadas inicio fin
+ *   <- DESDE byte                             (releer desde ese byte; responde otro PARCIAL)
+ *   <- FILA desplazamiento                    (fila global de su primera fila)
+ *   -> BLOQUES completos cabeza cola          (sumas y ratings de los bordes en parcial.bloques)
+ *   <- C hex                                  (bits del double)
+ *   -> LISTO                                  (fragmento ordenado en parcial.bin)
+ */
+public class RankingFragmentado {
+
+    // Estadísticas de la última ejecución
+    public static class Estadisticas {
+        public int fragmentos;
+        public int relecturas;
+        public long filas;
+        public long malformadas;
+        public double C;
+        public long bytesLeidos;
+        public long bytesParciales;
+        public long bytesEscritos;
+        public long comparacionesMezcla;
+        public double segundosFragmentos;
+        public double segundosC;
+        public double segundosOrden;
+        public double segundosMezcla;
+
+        @Override
+        public String toString() {
+            if (fragmentos == 1)
+                return String.format("Un solo proceso | Filas: %d | C = %.6f | Leídos: %.1f MB | Escritos: %.1f MB\n"
+                        + "Tiempos: carga %.3fs, C %.3fs, puntuación y orden %.3fs, escritura %.3fs", filas, C,
+                        bytesLeidos / 1048576.0, bytesEscritos / 1048576.0, segundosFragmentos, segundosC,
+                        segundosOrden, segundosMezcla);
+            return String.format("Fragmentos: %d (relecturas: %d) | Filas: %d | Mal formadas: %d | C = %.6f"
+                    + " | Leídos: %.1f MB | Parciales: %.1f MB | Escritos: %.1f MB | Comparaciones en la mezcla: %d\n"
+                    + "Tiempos: lectura %.3fs, C %.3fs, puntuación y orden %.3fs, mezcla %.3fs", fragmentos,
+                    relecturas, filas, malformadas, C, bytesLeidos / 1048576.0, bytesParciales / 1048576.0,
+                    bytesEscritos / 1048576.0, comparacionesMezcla, segundosFragmentos, segundosC, segundosOrden,
+                    segundosMezcla);
+        }
+    }
+
+    /**
+     * Ordena el CSV Organization,Rating,NumberReview 'entrada' y escribe el
+     * ranking final. Con fragmentos <= 1 se hace todo en este proceso (la
+     * referencia); si no, con un proceso trabajador por fragmento.
+     * 'memoriaMb' > 0 fija el heap de cada trabajador.
+     */
+    public static Estadisticas ordenar(Path entrada, String archivoSalida, double m, int fragmentos,
+            long memoriaMb) throws IOException {
+        long tamano = Files.size(entrada);
+        // Al menos un byte por fragmento
+        int n = (int) Math.max(1, Math.min(fragmentos, tamano));
+        if (n == 1)
+            return ordenarEnProceso(entrada, archivoSalida, m);
+
+        Estadisticas est = new Estadisticas();
+        est.fragmentos = n;
+        est.bytesLeidos = tamano;
+        Path directorio = Files.createTempDirectory("fragmentos_");
+        Trabajador[] trabajadores = new Trabajador[n];
+        try {
+            coordinar(entrada, archivoSalida, m, memoriaMb, tamano, directorio, trabajadores, est);
+        } finally {
+            for (Trabajador t : trabajadores) {
+                if (t != null)
+                    t.proceso.destroyForcibly();
+            }
+            try (Stream<Path> archivos = Files.list(directorio)) {
+                for (Path p : (Iterable<Path>) archivos::iterator)
+                    Files.deleteIfExists(p);
+            }
+            Files.deleteIfExists(directorio);
+        }
+        return est;
+    }
+
+    @SuppressWarnings("try")
+    private static void coordinar(Path entrada, String archivoSalida, double m, long memoriaMb, long tamano,
+            Path directorio, Trabajador[] trabajadores, Estadisticas est) throws IOException {
+        int n = trabajadores.length;
+        // Los trabajadores corren a la vez: se reparten los hilos del equipo
+        int hilos = Math.max(1, Runtime.getRuntime().availableProcessors() / n);
+
+        // 1 y 2. Lectura de los fragmentos y verificación de los límites
+        long t0 = System.nanoTime();
+        try (Metricas.Fase fase = Metricas.fase("fragmentos")) {
+            for (int i = 0; i < n; i++)
+                trabajadores[i] = Trabajador.lanzar(entrada, tamano * i / n, tamano * (i + 1) / n, m, memoriaMb,
+                        hilos, directorio.resolve("fragmento_" + i));
+            for (Trabajador t : trabajadores)
+                t.leerParcial();
+            // Una línea con un salto entre comillas cruzó un límite: ese trabajador relee desde donde terminó
+            // el anterior. Se avanza en orden porque solo el final de un fragmento con todos los anteriores
+            // coincidentes es confiable: releer a la vez los que siguen a uno mal alineado propaga el error
+            for (int i = 1; i < n; i++) {
+                if (trabajadores[i].inicio != trabajadores[i - 1].fin) {
+                    trabajadores[i].enviar("DESDE " + trabajadores[i - 1].fin);
+                    trabajadores[i].leerParcial();
+                    est.relecturas++;
+                }
+            }
+            if (trabajadores[n - 1].fin != tamano)
+                throw new IOException("el último fragmento terminó en el byte " + trabajadores[n - 1].fin + " de "
+                        + tamano);
+        }
+        for (Trabajador t : trabajadores) {
+            est.filas += t.filas;
+            est.malformadas += t.malformadas;
+        }
+        est.segundosFragmentos = (System.nanoTime() - t0) / 1e9;
+        Metricas.contar("filasLeidas", est.filas);
+        Metricas.contar("filasMalformadas", est.malformadas);
+        Metricas.contar("bytesLeidos", tamano);
+        if (est.filas == 0)
+            throw new IOException("No se cargaron registros");
+
+        // 3. C: sumas de los bloques enteros de cada fragmento y, en orden, las filas de los bordes
+        t0 = System.nanoTime();
+        try (Metricas.Fase fase = Metricas.fase("promedio")) {
+            long desplazamiento = 0;
+            for (Trabajador t : trabajadores) {
+                t.enviar("FILA " + desplazamiento);
+                desplazamiento += t.filas;
+            }
+            KernelPuntuacion.PromedioPorBloques promedio = new KernelPuntuacion.PromedioPorBloques();
+            for (Trabajador t : trabajadores) {
+                String[] campos = t.respuesta("BLOQUES").split(" ");
+                int completos = Integer.parseInt(campos[1]);
+                int cabeza = Integer.parseInt(campos[2]);
+                int cola = Integer.parseInt(campos[3]);
+                try (DataInputStream in = new DataInputStream(
+                        new BufferedInputStream(Files.newInputStream(t.bloques()), 1 << 16))) {
+                    double[] suma = new double[completos];
+                    double[] compensacion = new double[completos];
+                    for (int b = 0; b < completos; b++) {
+                        suma[b] = in.readDouble();
+                        compensacion[b] = in.readDouble();
+                    }
+                    for (int i = 0; i < cabeza; i++)
+                        promedio.agregar(in.readDouble());
+                    for (int b = 0; b < completos; b++)
+                        promedio.agregarBloque(suma[b], compensacion[b]);
+                    for (int i = 0; i < cola; i++)
+                        promedio.agregar(in.readDouble());
+                }
+            }
+            est.C = promedio.promedio();
+        }
+        est.segundosC = (System.nanoTime() - t0) / 1e9;
+
+        // 4. Cada trabajador puntúa y ordena su fragmento
+        t0 = System.nanoTime();
+        List<Path> parciales = new ArrayList<>();
+        try (Metricas.Fase fase = Metricas.fase("ordenFragmentos")) {
+            for (Trabajador t : trabajadores)
+                t.enviar("C " + Long.toHexString(Double.doubleToRawLongBits(est.C)));
+            for (Trabajador t : trabajadores) {
+                t.esperarListo();
+                parciales.add(t.parcial());
+                est.bytesParciales += Files.size(t.parcial());
+            }
+        }
+        est.segundosOrden = (System.nanoTime() - t0) / 1e9;
+
+        // 5. Mezcla de los parciales
+        t0 = System.nanoTime();
+        try (Metricas.Fase fase = Metricas.fase("mezcla")) {
+            OrdenamientoExterno.Estadisticas estMezcla = new OrdenamientoExterno.Estadisticas();
+            OrdenamientoExterno.mezclar(parciales, archivoSalida, estMezcla);
+            est.bytesEscritos = estMezcla.bytesEscritos;
+            est.comparacionesMezcla = estMezcla.comparacionesMezcla;
+        }
+        est.segundosMezcla = (System.nanoTime() - t0) / 1e9;
+        Metricas.contar("bytesEscritos", est.bytesEscritos);
+        Metricas.contar("filasEscritas", est.filas);
+    }
+
+    // Referencia en una sola JVM: mismo C, mismo orden estable
+    @SuppressWarnings("try")
+    private static Estadisticas ordenarEnProceso(Path entrada, String archivoSalida, double m) throws IOException {
+        Estadisticas est = new Estadisticas();
+        est.fragmentos = 1;
+        long t0 = System.nanoTime();
+        RestauranteTable tabla;
+        try (Metricas.Fase fase = Metricas.fase("carga")) {
+            tabla = Ordenar.cargarTabla(Files.newInputStream(entrada), 0);
+        }
+        est.filas = tabla.size();
+        est.bytesLeidos = Files.size(entrada);
+        est.segundosFragmentos = (System.nanoTime() - t0) / 1e9;
+        if (tabla.size() == 0)
+            throw new IOException("No se cargaron registros");
+
+        t0 = System.nanoTime();
+        try (Metricas.Fase fase = Metricas.fase("promedio")) {
+            est.C = KernelPuntuacion.promedio(tabla);
+        }
+        est.segundosC = (System.nanoTime() - t0) / 1e9;
+        t0 = System.nanoTime();
+        try (Metricas.Fase fase = Metricas.fase("ordenamiento")) {
+            KernelPuntuacion.puntuar(tabla.numeroResenas, tabla.rating, tabla.puntuacionTotal, tabla.size(), m,
+                    est.C);
+            tabla.reiniciarOrden();
+            RadixSort.ordenarPorPuntuacion(tabla);
+        }
+        est.segundosOrden = (System.nanoTime() - t0) / 1e9;
+        t0 = System.nanoTime();
+        if (!Ordenar.escribirRanking(tabla, archivoSalida))
+            throw new IOException("no se pudo escribir " + archivoSalida);
+        est.bytesEscritos = Files.size(Paths.get(archivoSalida));
+        est.segundosMezcla = (System.nanoTime() - t0) / 1e9;
+        return est;
+    }
+
+    // ===== Coordinador: un proceso trabajador =====
+
+    private static class Trabajador {
+        final Process proceso;
+        final BufferedReader salida;
+        final Writer entrada;
+        final Path base;
+        final long hasta;
+        long inicio;
+        long fin;
+        long filas;
+        long malformadas;
+
+        private Trabajador(Process proceso, Path base, long hasta) {
+            this.proceso = proceso;
+            this.salida = new BufferedReader(
+                    new InputStreamReader(proceso.getInputStream(), StandardCharsets.UTF_8));
+            this.entrada = new OutputStreamWriter(proceso.getOutputStream(), StandardCharsets.UTF_8);
+            this.base = base;
+            this.hasta = hasta;
+        }
+
+        // Mismo java y classpath que este proceso; los errores del trabajador salen por nuestra stderr
+        static Trabajador lanzar(Path archivo, long desde, long hasta, double m, long memoriaMb, int hilos,
+                Path base) throws IOException {
+            List<String> comando = new ArrayList<>();
+            comando.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            comando.add("-cp");
+            comando.add(System.getProperty("java.class.path"));
+            if (memoriaMb > 0)
+                comando.add("-Xmx" + memoriaMb + "m");
+            comando.add("-Djava.util.concurrent.ForkJoinPool.common.parallelism=" + hilos);
+            comando.add("RankingFragmentado");
+            comando.add("--entrada=" + archivo.toAbsolutePath());
+            comando.add("--desde=" + desde);
+            comando.add("--hasta=" + hasta);
+            comando.add("--parcial=" + base);
+            comando.add("--m=" + m);
+            Process proceso = new ProcessBuilder(comando).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            return new Trabajador(proceso, base, hasta);
+        }
+
+        Path bloques() {
+            return Paths.get(base + ".bloques");
+        }
+
+        Path parcial() {
+            return Paths.get(base + ".bin");
+        }
+
+        void leerParcial() throws IOException {
+            String[] campos = respuesta("PARCIAL").split(" ");
+            filas = Long.parseLong(campos[1]);
+            malformadas = Long.parseLong(campos[2]);
+            inicio = Long.parseLong(campos[3]);
+            fin = Long.parseLong(campos[4]);
+        }
+
+        void esperarListo() throws IOException {
+            respuesta("LISTO");
+        }
+
+        void enviar(String linea) throws IOException {
+            entrada.write(linea + "\n");
+            entrada.flush();
+        }
+
+        String respuesta(String esperada) throws IOException {
+            String linea = salida.readLine();
+            if (linea == null || !linea.startsWith(esperada))
+                throw new IOException("el trabajador de " + base.getFileName() + " terminó sin responder "
+                        + esperada + (linea == null ? "" : " (respondió: " + linea + ")"));
+            return linea;
+        }
+    }
+
+    // ===== Trabajador =====
+
+    public static void main(String[] args) {
+        try {
+            Configuracion config = Configuracion.desdeArgumentos(args, null, "entrada", "desde", "hasta", "parcial",
+                    "m");
+            if (!config.tiene("entrada") || !config.tiene("parcial"))
+                throw new IllegalArgumentException("faltan --entrada o --parcial");
+            trabajar(config.ruta("entrada", null), config.enteroLargo("desde", null, 0),
+                    config.enteroLargo("hasta", null, Long.MAX_VALUE), config.texto("parcial", null),
+                    config.decimal("m", null, 100.0));
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println("Trabajador: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void trabajar(Path archivo, long desde, long hasta, String base, double m) throws IOException {
+        PrintStream salida = System.out;
+        BufferedReader ordenes = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+
+        long inicio;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            inicio = alinear(canal, desde);
+        }
+        Fragmento f;
+        String orden;
+        while (true) {
+            f = leerFragmento(archivo, inicio, hasta);
+            salida.println("PARCIAL " + f.tabla.size() + " " + f.malformadas + " " + inicio + " " + f.fin);
+            salida.flush();
+            orden = ordenes.readLine();
+            if (orden == null || !orden.startsWith("DESDE "))
+                break;
+            // El fragmento anterior terminó en otro byte: se relee desde ahí
+            f = null;
+            inicio = Long.parseLong(orden.substring(6).trim());
+        }
+        if (orden == null || !orden.startsWith("FILA "))
+            return; // Se cerró la entrada: el coordinador terminó (o falló)
+        RestauranteTable tabla = f.tabla;
+        int n = tabla.size();
+        long desplazamiento = Long.parseLong(orden.substring(5).trim());
+        // Bloques del promedio global (cada TAM_BLOQUE filas desde la primera del archivo) enteros en el fragmento
+        int tamBloque = KernelPuntuacion.TAM_BLOQUE;
+        int cabeza = (int) Math.min(n, Math.floorMod(-desplazamiento, (long) tamBloque));
+        int completos = (n - cabeza) / tamBloque;
+        int cola = n - cabeza - completos * tamBloque;
+        double[] suma = new double[completos];
+        double[] compensacion = new double[completos];
+        KernelPuntuacion.sumarBloques(tabla.rating, cabeza, completos, suma, compensacion);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(Paths.get(base + ".bloques")), 1 << 16))) {
+            for (int b = 0; b < completos; b++) {
+                out.writeDouble(suma[b]);
+                out.writeDouble(compensacion[b]);
+            }
+            for (int i = 0; i < cabeza; i++)
+                out.writeDouble(tabla.rating[i]);
+            for (int i = n - cola; i < n; i++)
+                out.writeDouble(tabla.rating[i]);
+        }
+        salida.println("BLOQUES " + completos + " " + cabeza + " " + cola);
+        salida.flush();
+
+        orden = ordenes.readLine();
+        if (orden == null || !orden.startsWith("C "))
+            return;
+        double C = Double.longBitsToDouble(Long.parseUnsignedLong(orden.substring(2).trim(), 16));
+        KernelPuntuacion.puntuar(tabla.numeroResenas, tabla.rating, tabla.puntuacionTotal, n, m, C);
+        tabla.reiniciarOrden();
+        RadixSort.ordenarPorPuntuacion(tabla);
+        OrdenamientoExterno.escribirCorrida(tabla, Paths.get(base + ".bin"));
+        salida.println("LISTO");
+        salida.flush();
+    }
+
+    // Filas de las líneas que empiezan en [inicio, hasta) y byte donde terminó la última
+    private static class Fragmento {
+        final RestauranteTable tabla;
+        final long malformadas;
+        final long fin;
+
+        Fragmento(RestauranteTable tabla, long malformadas, long fin) {
+            this.tabla = tabla;
+            this.malformadas = malformadas;
+            this.fin = fin;
+        }
+    }
+
+    // Mismas reglas por línea que Ordenar.cargarTabla
+    private static Fragmento leerFragmento(Path archivo, long inicio, long hasta) throws IOException {
+        int capacidad = (int) Math.max(1024, Math.min(1_000_000, (hasta - inicio) / 32));
+        RestauranteTable tabla = new RestauranteTable(capacidad);
+        long malformadas = 0;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            canal.position(inicio);
+            try (LectorCSV lector = new LectorCSV(Channels.newInputStream(canal), 3)) {
+                if (inicio == 0)
+                    lector.siguienteLinea(); // Saltamos la cabecera
+                while (inicio + lector.posicion() < hasta && lector.siguienteLinea()) {
+                    try {
+                        double rating = lector.decimal(1);
+                        int numeroResenas = lector.entero(2);
+                        lector.quitarComillas(0);
+                        tabla.agregar(lector.buffer(), lector.inicio(0), lector.largo(0), rating, numeroResenas);
+                    } catch (NumberFormatException e) {
+                        malformadas++;
+                    }
+                }
+                return new Fragmento(tabla, malformadas, inicio + lector.posicion());
+            }
+        }
+    }
+
+    /**
+     * Primer inicio de línea en o después de 'posicion': el byte siguiente al
+     * primer '\n' desde posicion - 1 (así una línea que empieza justo en
+     * 'posicion' es de este fragmento). No distingue saltos entre comillas;
+     * eso lo corrige el coordinador.
+     */
+    static long alinear(FileChannel canal, long posicion) throws IOException {
+        long tamano = canal.size();
+        if (posicion <= 0)
+            return 0;
+        if (posicion >= tamano)
+            return tamano;
+        ByteBuffer bb = ByteBuffer.allocate(1 << 16);
+        long p = posicion - 1;
+        while (p < tamano) {
+            bb.clear();
+            int leidos = canal.read(bb, p);
+            if (leidos <= 0)
+                break;
+            for (int i = 0; i < leidos; i++) {
+                if (bb.get(i) == '\n')
+                    return p + i + 1;
+            }
+            p += leidos;
+        }
+        return tamano;
+    }
+}
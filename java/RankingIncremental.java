@@ -0,0 +1,312 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Ranking por puntuación total que se mantiene al día con deltas de reseñas
+ * en lugar de recalcular y reordenar todo.
+ *
+ *  - Las filas viven en una skip list indexable ordenada por puntuación
+ *    (mayor primero, a igualdad la fila menor): cada enlace guarda cuántas
+ *    posiciones salta, así insertar, borrar y consultar la posición de una
+ *    fila cuestan O(log n) esperado.
+ *  - Las puntuaciones se calculan con el C del último reescalado
+ *    (KernelPuntuacion.promedio, el mismo que las demás opciones). Entre
+ *    reescalados C se sigue con la suma corrida de ratings (tabla.sumaRatings);
+ *    solo cuando se aleja más de 'tolerancia' se recalculan todas y se
+ *    reconstruye la lista (O(n log n) una vez, no por cada delta).
+ *
+ * Un delta (nombre, rating, numeroResenas) trae los valores nuevos absolutos
+ * del restaurante. Si hay varias filas con el mismo nombre se actualiza la
+ * primera; un nombre desconocido se agrega como fila nueva.
+ */
+public class RankingIncremental {
+    private static final int MAX_NIVEL = 32;
+
+    // Nodo de la skip list; ancho[i] = posiciones que avanza el enlace sig[i]
+    private static class Nodo {
+        final double clave;
+        final int fila;
+        final Nodo[] sig;
+        final int[] ancho;
+
+        Nodo(double clave, int fila, int nivel) {
+            this.clave = clave;
+            this.fila = fila;
+            this.sig = new Nodo[nivel];
+            this.ancho = new int[nivel];
+        }
+    }
+
+    private final RestauranteTable tabla;
+    private final double m;
+    private final double tolerancia;
+    private final SplittableRandom azar = new SplittableRandom(42);
+
+    private Nodo cabeza;
+    private int nivel;
+    private int tam;
+    // Primera fila de cada id del diccionario de nombres (-1 si no hay)
+    private int[] filaPorNombre;
+    private double cUsado;
+
+    // Contadores para el reporte
+    public long actualizaciones;
+    public long inserciones;
+    public long reescalados;
+
+    public RankingIncremental(RestauranteTable tabla, double m, double tolerancia) {
+        this.tabla = tabla;
+        this.m = m;
+        this.tolerancia = tolerancia;
+        filaPorNombre = new int[Math.max(16, tabla.cantidadNombres())];
+        Arrays.fill(filaPorNombre, -1);
+        for (int fila = tabla.size() - 1; fila >= 0; fila--)
+            filaPorNombre[tabla.nombreId[fila]] = fila;
+        reescalar();
+    }
+
+    public int size() {
+        return tam;
+    }
+
+    // C con los datos actuales (estimado con la suma corrida)
+    public double cActual() {
+        return tabla.size() == 0 ? 0.0 : tabla.sumaRatings / tabla.size();
+    }
+
+    // C con el que están calculadas las puntuaciones de la lista
+    public double cUsado() {
+        return cUsado;
+    }
+
+    /**
+     * Aplica un delta. Devuelve true si provocó un reescalado completo
+     * (el C real superó la tolerancia).
+     */
+    public boolean aplicar(byte[] src, int off, int len, double rating, int numeroResenas) {
+        int nombresAntes = tabla.cantidadNombres();
+        int id = tabla.idNombre(src, off, len);
+        int fila = id < nombresAntes ? filaPorNombre[id] : -1;
+
+        if (fila >= 0) {
+            eliminar(tabla.puntuacionTotal[fila], fila);
+            tabla.sumaRatings += rating - tabla.rating[fila];
+            tabla.rating[fila] = rating;
+            tabla.numeroResenas[fila] = numeroResenas;
+            actualizaciones++;
+        } else {
+            fila = tabla.agregar(src, off, len, rating, numeroResenas);
+            if (id >= filaPorNombre.length) {
+                int anterior = filaPorNombre.length;
+                filaPorNombre = Arrays.copyOf(filaPorNombre, Math.max(id + 1, anterior * 2));
+                Arrays.fill(filaPorNombre, anterior, filaPorNombre.length, -1);
+            }
+            filaPorNombre[id] = fila;
+            inserciones++;
+        }
+
+        if (Math.abs(cActual() - cUsado) > tolerancia) {
+            reescalar();
+            return true;
+        }
+        tabla.puntuacionTotal[fila] = puntuar(fila, cUsado);
+        insertar(tabla.puntuacionTotal[fila], fila);
+        return false;
+    }
+
+    public boolean aplicar(String nombre, double rating, int numeroResenas) {
+        byte[] b = nombre.getBytes(StandardCharsets.UTF_8);
+        return aplicar(b, 0, b.length, rating, numeroResenas);
+    }
+
+    /**
+     * Aplica un archivo de deltas con el mismo formato que datos_procesados.csv
+     * (Organization,Rating,NumberReview, con cabecera). Devuelve cuántos se
+     * aplicaron; las líneas mal formadas se ignoran.
+     */
+    public long aplicarDeltas(InputStream entrada) throws IOException {
+        long aplicados = 0;
+        try (LectorCSV lector = new LectorCSV(entrada, 3)) {
+            lector.siguienteLinea(); // cabecera
+            while (lector.siguienteLinea()) {
+                try {
+                    double rating = lector.decimal(1);
+                    int numeroResenas = lector.entero(2);
+                    lector.quitarComillas(0);
+                    aplicar(lector.buffer(), lector.inicio(0), lector.largo(0), rating, numeroResenas);
+                    aplicados++;
+                } catch (NumberFormatException e) {
+                    // Ignorar líneas mal formadas
+                }
+            }
+        }
+        return aplicados;
+    }
+
+    // Posición (0 = la mejor) de una fila en el ranking
+    public int posicion(int fila) {
+        double clave = tabla.puntuacionTotal[fila];
+        Nodo x = cabeza;
+        int rango = 0;
+        for (int i = nivel - 1; i >= 0; i--) {
+            while (x.sig[i] != null && !antes(clave, fila, x.sig[i].clave, x.sig[i].fila)) {
+                rango += x.ancho[i];
+                x = x.sig[i];
+            }
+        }
+        if (x.fila != fila)
+            throw new IllegalArgumentException("la fila " + fila + " no está en el ranking");
+        return rango - 1;
+    }
+
+    // Fila que ocupa la posición p (0 = la mejor)
+    public int filaEn(int p) {
+        if (p < 0 || p >= tam)
+            throw new IndexOutOfBoundsException("posición " + p + " fuera de 0.." + (tam - 1));
+        Nodo x = cabeza;
+        int recorrido = 0;
+        for (int i = nivel - 1; i >= 0; i--) {
+            while (x.sig[i] != null && recorrido + x.ancho[i] <= p + 1) {
+                recorrido += x.ancho[i];
+                x = x.sig[i];
+            }
+        }
+        return x.fila;
+    }
+
+    // Todas las filas en orden de ranking (recorre el nivel 0)
+    public int[] filasEnOrden() {
+        int[] filas = new int[tam];
+        int p = 0;
+        for (Nodo x = cabeza.sig[0]; x != null; x = x.sig[0])
+            filas[p++] = x.fila;
+        return filas;
+    }
+
+    /**
+     * Recalcula todas las puntuaciones con el C actual y reconstruye la lista
+     * en O(n) a partir del orden de QuickSort3Vias.
+     */
+    public void reescalar() {
+        cUsado = KernelPuntuacion.promedio(tabla);
+        int n = tabla.size();
+        // La suma corrida parte del C exacto: solo acumula los deltas desde aquí
+        tabla.sumaRatings = cUsado * n;
+        for (int fila = 0; fila < n; fila++)
+            tabla.puntuacionTotal[fila] = puntuar(fila, cUsado);
+        tabla.reiniciarOrden();
+        QuickSort3Vias.ordenarPorPuntuacion(tabla);
+        // QuickSort3Vias no es estable: se ordenan las filas empatadas para que
+        // coincidan con el desempate de la lista (fila menor primero)
+        int[] orden = tabla.orden;
+        for (int i = 0; i < n;) {
+            int j = i + 1;
+            while (j < n && tabla.puntuacionTotal[orden[j]] == tabla.puntuacionTotal[orden[i]])
+                j++;
+            if (j - i > 1)
+                Arrays.sort(orden, i, j);
+            i = j;
+        }
+
+        cabeza = new Nodo(Double.NaN, -1, MAX_NIVEL);
+        nivel = 1;
+        tam = n;
+        Nodo[] ultimo = new Nodo[MAX_NIVEL];
+        int[] rangoUltimo = new int[MAX_NIVEL];
+        Arrays.fill(ultimo, cabeza);
+        for (int p = 0; p < n; p++) {
+            int fila = orden[p];
+            int lvl = nivelAleatorio();
+            nivel = Math.max(nivel, lvl);
+            Nodo nuevo = new Nodo(tabla.puntuacionTotal[fila], fila, lvl);
+            for (int i = 0; i < lvl; i++) {
+                ultimo[i].sig[i] = nuevo;
+                ultimo[i].ancho[i] = p + 1 - rangoUltimo[i];
+                ultimo[i] = nuevo;
+                rangoUltimo[i] = p + 1;
+            }
+        }
+        // Los últimos enlaces de cada nivel apuntan a null y saltan hasta el final
+        for (int i = 0; i < nivel; i++)
+            ultimo[i].ancho[i] = n - rangoUltimo[i];
+        reescalados++;
+    }
+
+    private double puntuar(int fila, double C) {
+        int v = tabla.numeroResenas[fila];
+        return (v / (v + m)) * tabla.rating[fila] + (m / (v + m)) * C;
+    }
+
+    // true si (claveA, filaA) va antes que (claveB, filaB) en el ranking
+    private static boolean antes(double claveA, int filaA, double claveB, int filaB) {
+        return claveA > claveB || (claveA == claveB && filaA < filaB);
+    }
+
+    private int nivelAleatorio() {
+        // Probabilidad 1/2 por nivel
+        return Math.min(MAX_NIVEL, 1 + Long.numberOfTrailingZeros(azar.nextLong()));
+    }
+
+    private void insertar(double clave, int fila) {
+        Nodo[] previo = new Nodo[MAX_NIVEL];
+        int[] rango = new int[MAX_NIVEL];
+        Nodo x = cabeza;
+        for (int i = nivel - 1; i >= 0; i--) {
+            rango[i] = i == nivel - 1 ? 0 : rango[i + 1];
+            while (x.sig[i] != null && antes(x.sig[i].clave, x.sig[i].fila, clave, fila)) {
+                rango[i] += x.ancho[i];
+                x = x.sig[i];
+            }
+            previo[i] = x;
+        }
+
+        int lvl = nivelAleatorio();
+        if (lvl > nivel) {
+            for (int i = nivel; i < lvl; i++) {
+                rango[i] = 0;
+                previo[i] = cabeza;
+                cabeza.ancho[i] = tam;
+            }
+            nivel = lvl;
+        }
+
+        Nodo nuevo = new Nodo(clave, fila, lvl);
+        for (int i = 0; i < lvl; i++) {
+            nuevo.sig[i] = previo[i].sig[i];
+            previo[i].sig[i] = nuevo;
+            nuevo.ancho[i] = previo[i].ancho[i] - (rango[0] - rango[i]);
+            previo[i].ancho[i] = rango[0] - rango[i] + 1;
+        }
+        for (int i = lvl; i < nivel; i++)
+            previo[i].ancho[i]++;
+        tam++;
+    }
+
+    private void eliminar(double clave, int fila) {
+        Nodo[] previo = new Nodo[MAX_NIVEL];
+        Nodo x = cabeza;
+        for (int i = nivel - 1; i >= 0; i--) {
+            while (x.sig[i] != null && antes(x.sig[i].clave, x.sig[i].fila, clave, fila))
+                x = x.sig[i];
+            previo[i] = x;
+        }
+        x = x.sig[0];
+        if (x == null || x.fila != fila)
+            throw new IllegalStateException("la fila " + fila + " no está en el ranking");
+
+        for (int i = 0; i < nivel; i++) {
+            if (previo[i].sig[i] == x) {
+                previo[i].ancho[i] += x.ancho[i] - 1;
+                previo[i].sig[i] = x.sig[i];
+            } else {
+                previo[i].ancho[i]--;
+            }
+        }
+        while (nivel > 1 && cabeza.sig[nivel - 1] == null)
+            nivel--;
+        tam--;
+    }
+}
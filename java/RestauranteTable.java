@@ -0,0 +1,250 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Almacén columnar de restaurantes.
+ * En lugar de un ArrayList<Restaurante> (un objeto + un String por fila) guarda
+ * cada campo en un arreglo primitivo paralelo. Los nombres se guardan una sola
+ * vez en un diccionario: un buffer de bytes UTF-8 con sus offsets, y cada fila
+ * solo guarda el id de su nombre (las cadenas repetidas se comparten).
+ *
+ * Los algoritmos de ordenamiento no mueven las columnas: ordenan la
+ * permutación 'orden', que indica qué fila va en cada posición.
+ */
+public class RestauranteTable {
+    // Columnas primitivas (una posición por fila)
+    public int[] numeroResenas;
+    public double[] rating;
+    public double[] puntuacionTotal;
+    public int[] nombreId;
+
+    // Permutación de índices: orden[p] es la fila que ocupa la posición p
+    public int[] orden;
+
+    // Suma de ratings acumulada al cargar, así C se obtiene sin otra pasada
+    public double sumaRatings;
+
+    private int filas;
+
+    // Diccionario de nombres: bytes UTF-8 concatenados y el offset de cada uno
+    private byte[] nombresBytes;
+    private int[] nombresOffset; // tamaño cantidadNombres + 1
+    private int cantidadNombres;
+    private int bytesUsados;
+
+    // Tabla hash de direccionamiento abierto (id + 1, 0 = vacío) para buscar
+    // un nombre ya existente sin crear Strings
+    private int[] hashIds;
+    private int[] hashNombres; // hash de cada nombre del diccionario
+
+    public RestauranteTable(int capacidadInicial) {
+        this(capacidadInicial, Math.max(16, capacidadInicial) * 16);
+    }
+
+    /**
+     * Con capacidadInicial filas (y nombres distintos) y bytesNombres bytes de
+     * nombres no se vuelve a crecer ningún arreglo.
+     */
+    public RestauranteTable(int capacidadInicial, int bytesNombres) {
+        int cap = Math.max(16, capacidadInicial);
+        numeroResenas = new int[cap];
+        rating = new double[cap];
+        puntuacionTotal = new double[cap];
+        nombreId = new int[cap];
+        nombresBytes = new byte[Math.max(16, bytesNombres)];
+        nombresOffset = new int[cap + 1];
+        hashNombres = new int[cap];
+        hashIds = new int[Integer.highestOneBit(cap) * 4];
+    }
+
+    /**
+     * Construye una tabla a partir de columnas ya cargadas (por ejemplo desde
+     * el formato binario). La tabla hash de nombres se arma recién cuando se
+     * agrega una fila nueva.
+     */
+    public static RestauranteTable desdeColumnas(int filas, int[] numeroResenas, double[] rating, int[] nombreId,
+            int cantidadNombres, int[] nombresOffset, byte[] nombresBytes, double sumaRatings) {
+        RestauranteTable tabla = new RestauranteTable(0);
+        tabla.filas = filas;
+        tabla.numeroResenas = numeroResenas;
+        tabla.rating = rating;
+        tabla.puntuacionTotal = new double[numeroResenas.length];
+        tabla.nombreId = nombreId;
+        tabla.cantidadNombres = cantidadNombres;
+        tabla.nombresOffset = nombresOffset;
+        tabla.nombresBytes = nombresBytes;
+        tabla.bytesUsados = nombresOffset[cantidadNombres];
+        tabla.sumaRatings = sumaRatings;
+        tabla.hashIds = null;
+        tabla.hashNombres = null;
+        return tabla;
+    }
+
+    public int size() {
+        return filas;
+    }
+
+    public int cantidadNombres() {
+        return cantidadNombres;
+    }
+
+    // Agrega una fila tomando el nombre desde un String
+    public int agregar(String nombre, double rating, int numeroResenas) {
+        byte[] b = nombre.getBytes(StandardCharsets.UTF_8);
+        return agregar(b, 0, b.length, rating, numeroResenas);
+    }
+
+    // Agrega una fila tomando el nombre directamente de un buffer de bytes UTF-8
+    public int agregar(byte[] src, int off, int len, double rating, int numeroResenas) {
+        if (filas == this.numeroResenas.length) {
+            int nuevaCap = Math.max(16, filas + (filas >> 1));
+            this.numeroResenas = Arrays.copyOf(this.numeroResenas, nuevaCap);
+            this.rating = Arrays.copyOf(this.rating, nuevaCap);
+            this.puntuacionTotal = Arrays.copyOf(this.puntuacionTotal, nuevaCap);
+            this.nombreId = Arrays.copyOf(this.nombreId, nuevaCap);
+        }
+        int fila = filas++;
+        this.numeroResenas[fila] = numeroResenas;
+        this.rating[fila] = rating;
+        this.puntuacionTotal[fila] = 0.0; // Se calculará después
+        this.nombreId[fila] = idNombre(src, off, len);
+        sumaRatings += rating;
+        orden = null; // la permutación anterior ya no es válida
+        return fila;
+    }
+
+    /**
+     * Devuelve el id del nombre en el diccionario, agregándolo si no existe.
+     */
+    public int idNombre(byte[] src, int off, int len) {
+        if (hashIds == null)
+            construirHash();
+        int h = hashBytes(src, off, len);
+        int mascara = hashIds.length - 1;
+        int slot = h & mascara;
+        while (true) {
+            int id = hashIds[slot] - 1;
+            if (id < 0)
+                break;
+            if (hashNombres[id] == h && mismosBytes(id, src, off, len))
+                return id;
+            slot = (slot + 1) & mascara;
+        }
+
+        // Nombre nuevo: se copia al buffer de bytes
+        int id = cantidadNombres++;
+        if (id + 1 >= nombresOffset.length) {
+            nombresOffset = Arrays.copyOf(nombresOffset, nombresOffset.length * 2);
+            hashNombres = Arrays.copyOf(hashNombres, nombresOffset.length);
+        }
+        if (bytesUsados + len > nombresBytes.length) {
+            nombresBytes = Arrays.copyOf(nombresBytes, Math.max(nombresBytes.length * 2, bytesUsados + len));
+        }
+        System.arraycopy(src, off, nombresBytes, bytesUsados, len);
+        nombresOffset[id] = bytesUsados;
+        bytesUsados += len;
+        nombresOffset[id + 1] = bytesUsados;
+        hashNombres[id] = h;
+        hashIds[slot] = id + 1;
+
+        // Mantener el factor de carga por debajo de 0.5
+        if (cantidadNombres * 2 > hashIds.length)
+            rehash();
+        return id;
+    }
+
+    // Arma la tabla hash para un diccionario cargado sin ella
+    private void construirHash() {
+        hashNombres = new int[nombresOffset.length];
+        for (int id = 0; id < cantidadNombres; id++)
+            hashNombres[id] = hashBytes(nombresBytes, nombresOffset[id], nombresOffset[id + 1] - nombresOffset[id]);
+        hashIds = new int[Integer.highestOneBit(Math.max(16, cantidadNombres)) * 4];
+        rehash();
+    }
+
+    private void rehash() {
+        int[] nueva = new int[hashIds.length * 2];
+        int mascara = nueva.length - 1;
+        for (int id = 0; id < cantidadNombres; id++) {
+            int slot = hashNombres[id] & mascara;
+            while (nueva[slot] != 0)
+                slot = (slot + 1) & mascara;
+            nueva[slot] = id + 1;
+        }
+        hashIds = nueva;
+    }
+
+    private boolean mismosBytes(int id, byte[] src, int off, int len) {
+        int inicio = nombresOffset[id];
+        if (nombresOffset[id + 1] - inicio != len)
+            return false;
+        for (int k = 0; k < len; k++) {
+            if (nombresBytes[inicio + k] != src[off + k])
+                return false;
+        }
+        return true;
+    }
+
+    private static int hashBytes(byte[] src, int off, int len) {
+        int h = 0x811C9DC5; // FNV-1a
+        for (int k = off; k < off + len; k++) {
+            h ^= src[k];
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    // Nombre de una fila como String (solo para mostrar o escribir)
+    public String nombre(int fila) {
+        return nombreDiccionario(nombreId[fila]);
+    }
+
+    public String nombreDiccionario(int id) {
+        int inicio = nombresOffset[id];
+        return new String(nombresBytes, inicio, nombresOffset[id + 1] - inicio, StandardCharsets.UTF_8);
+    }
+
+    // Acceso directo al diccionario para escribir nombres sin decodificarlos
+    public byte[] bytesNombres() {
+        return nombresBytes;
+    }
+
+    public int[] offsetsNombres() {
+        return nombresOffset;
+    }
+
+    public int inicioNombre(int id) {
+        return nombresOffset[id];
+    }
+
+    public int largoNombre(int id) {
+        return nombresOffset[id + 1] - nombresOffset[id];
+    }
+
+    /**
+     * Crea (o reinicia) la permutación identidad 0..n-1.
+     * Se llama antes de ordenar.
+     */
+    public int[] reiniciarOrden() {
+        if (orden == null || orden.length != filas)
+            orden = new int[filas];
+        for (int i = 0; i < filas; i++)
+            orden[i] = i;
+        return orden;
+    }
+
+    // Fila que ocupa la posición p del orden actual (identidad si no se ha ordenado)
+    public int filaEn(int posicion) {
+        return orden == null ? posicion : orden[posicion];
+    }
+
+    // Bytes aproximados que ocupa la tabla en memoria (para comparar con ArrayList)
+    public long bytesEnMemoria() {
+        long columnas = (long) numeroResenas.length * (4 + 8 + 8 + 4);
+        long permutacion = orden == null ? 0 : (long) orden.length * 4;
+        long diccionario = nombresBytes.length + (long) nombresOffset.length * 4;
+        if (hashIds != null)
+            diccionario += (long) hashNombres.length * 4 + (long) hashIds.length * 4;
+        return columnas + permutacion + diccionario;
+    }
+}
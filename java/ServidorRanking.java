@@ -0,0 +1,323 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor HTTP local para consultar el ranking sin volver a leer el CSV.
+ *
+ * La tabla se carga, puntúa y ordena una sola vez; después todo se responde
+ * desde memoria:
+ *  - GET /rank?nombre=X           posiciones de todos los locales con ese
+ *                                 nombre (normalizado), en orden de ranking;
+ *                                 si no hay ninguno, los nombres que empiezan
+ *                                 con X (uno por nombre normalizado)
+ *  - GET /pagina?desde=500&hasta=520   filas de ese rango de posiciones
+ *  - GET /top?k=20&minResenas=100      mejores K con al menos esas reseñas
+ *  - GET /estadisticas            consultas atendidas y aciertos de caché
+ *
+ * Índice de nombres: las claves normalizadas ordenadas (búsqueda binaria,
+ * sirve también para prefijos) y, por cada nombre del diccionario, sus filas
+ * en orden de ranking. Las respuestas se guardan en una caché LRU acotada.
+ */
+public class ServidorRanking {
+    static final int MAX_PAGINA = 1000;
+    static final int MAX_PREFIJO = 20;
+    static final int BACKLOG = 256;
+
+    private final RestauranteTable tabla;
+    // Posición (0 = la mejor) de cada fila
+    private final int[] posicionDeFila;
+    // Claves normalizadas ordenadas y el id de diccionario de cada una
+    private final String[] claves;
+    private final int[] idDeClave;
+    // Filas de cada id de diccionario, en orden de ranking: filasPorNombre[inicioFilas[id] .. inicioFilas[id+1])
+    private final int[] inicioFilas;
+    private final int[] filasPorNombre;
+
+    private final Map<String, String> cache;
+    private final AtomicLong consultas = new AtomicLong();
+    private final AtomicLong aciertos = new AtomicLong();
+    private HttpServer servidor;
+    private ExecutorService hilos;
+
+    /**
+     * 'tabla' debe venir puntuada y con 'orden' de mayor a menor puntuación.
+     */
+    public ServidorRanking(RestauranteTable tabla, int capacidadCache) {
+        this.tabla = tabla;
+        int n = tabla.size();
+        posicionDeFila = new int[n];
+        for (int p = 0; p < n; p++)
+            posicionDeFila[tabla.filaEn(p)] = p;
+
+        // Filas agrupadas por nombre (conteo + acumulado), recorridas en orden de ranking
+        int nombres = tabla.cantidadNombres();
+        inicioFilas = new int[nombres + 1];
+        for (int fila = 0; fila < n; fila++)
+            inicioFilas[tabla.nombreId[fila] + 1]++;
+        for (int id = 0; id < nombres; id++)
+            inicioFilas[id + 1] += inicioFilas[id];
+        filasPorNombre = new int[n];
+        int[] siguiente = Arrays.copyOf(inicioFilas, nombres);
+        for (int p = 0; p < n; p++) {
+            int fila = tabla.filaEn(p);
+            filasPorNombre[siguiente[tabla.nombreId[fila]]++] = fila;
+        }
+
+        // Claves normalizadas ordenadas; nombres que normalizan igual quedan contiguos
+        String[] normalizados = new String[nombres];
+        Integer[] ids = new Integer[nombres];
+        for (int id = 0; id < nombres; id++) {
+            normalizados[id] = AgregadorCadenas.normalizar(tabla.nombreDiccionario(id));
+            ids[id] = id;
+        }
+        Arrays.sort(ids, (a, b) -> normalizados[a].compareTo(normalizados[b]));
+        claves = new String[nombres];
+        idDeClave = new int[nombres];
+        for (int i = 0; i < nombres; i++) {
+            claves[i] = normalizados[ids[i]];
+            idDeClave[i] = ids[i];
+        }
+
+        // LinkedHashMap en orden de acceso = LRU; se sincroniza porque los hilos la comparten
+        cache = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> mayor) {
+                return size() > capacidadCache;
+            }
+        };
+    }
+
+    public void iniciar(int puerto) throws IOException {
+        // Cabeceras y cuerpo salen en dos escrituras: sin TCP_NODELAY, Nagle + ACK
+        // retardado agregan ~40 ms a cada respuesta. Se lee al crear el primer servidor.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", puerto), BACKLOG);
+        servidor.createContext("/", this::atender);
+        hilos = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        servidor.setExecutor(hilos);
+        servidor.start();
+    }
+
+    public void detener() {
+        servidor.stop(0);
+        hilos.shutdown();
+    }
+
+    private void atender(HttpExchange intercambio) throws IOException {
+        int codigo = 200;
+        String cuerpo;
+        try {
+            cuerpo = responder(intercambio.getRequestURI().getPath(), intercambio.getRequestURI().getRawQuery());
+            if (cuerpo == null) {
+                codigo = 404;
+                cuerpo = "{\"error\":\"ruta desconocida\"}";
+            }
+        } catch (IllegalArgumentException e) {
+            codigo = 400;
+            cuerpo = "{\"error\":" + Json.texto(e.getMessage()) + "}";
+        }
+        byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        intercambio.sendResponseHeaders(codigo, bytes.length);
+        try (OutputStream os = intercambio.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    /**
+     * Responde una consulta (ruta + query sin decodificar). Devuelve null si la
+     * ruta no existe. Público para poder usarlo sin pasar por HTTP.
+     */
+    public String responder(String ruta, String query) {
+        consultas.incrementAndGet();
+        if (ruta.equals("/estadisticas")) {
+            return "{\"filas\":" + tabla.size() + ",\"consultas\":" + consultas.get() + ",\"aciertosCache\":"
+                    + aciertos.get() + "}";
+        }
+        String clave = ruta + "?" + (query == null ? "" : query);
+        synchronized (cache) {
+            String guardada = cache.get(clave);
+            if (guardada != null) {
+                aciertos.incrementAndGet();
+                return guardada;
+            }
+        }
+
+        Map<String, String> parametros = parametros(query);
+        String respuesta;
+        switch (ruta) {
+            case "/rank":
+                respuesta = rank(requerido(parametros, "nombre"));
+                break;
+            case "/pagina":
+                respuesta = pagina(entero(parametros, "desde", 1), entero(parametros, "hasta", 20));
+                break;
+            case "/top":
+                respuesta = top(entero(parametros, "k", 20), entero(parametros, "minResenas", 0));
+                break;
+            default:
+                return null;
+        }
+        synchronized (cache) {
+            cache.put(clave, respuesta);
+        }
+        return respuesta;
+    }
+
+    // Todas las filas de los nombres que normalizan igual; si no hay, los que empiezan así
+    private String rank(String nombre) {
+        String buscado = AgregadorCadenas.normalizar(nombre);
+        int i = primeraClaveDesde(buscado);
+        boolean exacta = i < claves.length && claves[i].equals(buscado);
+        StringBuilder sb = new StringBuilder("{\"nombre\":").append(Json.texto(nombre)).append(",\"locales\":[");
+        if (exacta) {
+            // Cada id trae sus filas en orden de ranking; juntas se ordenan por posición
+            int j = finDeClave(i);
+            int total = 0;
+            for (int c = i; c < j; c++)
+                total += inicioFilas[idDeClave[c] + 1] - inicioFilas[idDeClave[c]];
+            int[] posiciones = new int[total];
+            int p = 0;
+            for (int c = i; c < j; c++) {
+                int id = idDeClave[c];
+                for (int k = inicioFilas[id]; k < inicioFilas[id + 1]; k++)
+                    posiciones[p++] = posicionDeFila[filasPorNombre[k]];
+            }
+            Arrays.sort(posiciones);
+            for (p = 0; p < total; p++) {
+                if (p > 0)
+                    sb.append(',');
+                fila(sb, tabla.filaEn(posiciones[p]));
+            }
+        }
+        sb.append("],\"sugerencias\":[");
+        if (!exacta) {
+            // Sin coincidencia exacta: búsqueda por prefijo, una sugerencia (su mejor fila) por clave distinta
+            int sugeridas = 0;
+            for (int c = i; c < claves.length && sugeridas < MAX_PREFIJO && claves[c].startsWith(buscado); ) {
+                int fin = finDeClave(c);
+                int mejor = filasPorNombre[inicioFilas[idDeClave[c]]];
+                for (int d = c + 1; d < fin; d++) {
+                    int candidata = filasPorNombre[inicioFilas[idDeClave[d]]];
+                    if (posicionDeFila[candidata] < posicionDeFila[mejor])
+                        mejor = candidata;
+                }
+                if (sugeridas++ > 0)
+                    sb.append(',');
+                fila(sb, mejor);
+                c = fin;
+            }
+        }
+        return sb.append("]}").toString();
+    }
+
+    // Posiciones 1-based, ambos extremos incluidos
+    private String pagina(int desde, int hasta) {
+        if (desde < 1 || hasta < desde)
+            throw new IllegalArgumentException("rango inválido: " + desde + ".." + hasta);
+        if (hasta - desde + 1 > MAX_PAGINA)
+            throw new IllegalArgumentException("la página no puede tener más de " + MAX_PAGINA + " filas");
+        StringBuilder sb = new StringBuilder("{\"desde\":").append(desde).append(",\"filas\":[");
+        for (int p = desde - 1; p < Math.min(hasta, tabla.size()); p++) {
+            if (p > desde - 1)
+                sb.append(',');
+            fila(sb, tabla.filaEn(p));
+        }
+        return sb.append("]}").toString();
+    }
+
+    // Recorre el ranking desde arriba hasta juntar K filas con suficientes reseñas
+    private String top(int k, int minResenas) {
+        if (k < 1 || k > MAX_PAGINA)
+            throw new IllegalArgumentException("k debe estar entre 1 y " + MAX_PAGINA);
+        StringBuilder sb = new StringBuilder("{\"k\":").append(k).append(",\"minResenas\":").append(minResenas)
+                .append(",\"filas\":[");
+        int encontrados = 0;
+        for (int p = 0; p < tabla.size() && encontrados < k; p++) {
+            int fila = tabla.filaEn(p);
+            if (tabla.numeroResenas[fila] < minResenas)
+                continue;
+            if (encontrados++ > 0)
+                sb.append(',');
+            fila(sb, fila);
+        }
+        return sb.append("]}").toString();
+    }
+
+    private void fila(StringBuilder sb, int fila) {
+        sb.append("{\"posicion\":").append(posicionDeFila[fila] + 1)
+                .append(",\"nombre\":").append(Json.texto(tabla.nombre(fila)))
+                .append(",\"rating\":").append(tabla.rating[fila])
+                .append(",\"numeroResenas\":").append(tabla.numeroResenas[fila])
+                .append(",\"puntuacionTotal\":").append(String.format("%.4f", tabla.puntuacionTotal[fila]))
+                .append('}');
+    }
+
+    // Fin (exclusivo) de las claves iguales a claves[i]
+    private int finDeClave(int i) {
+        int j = i;
+        while (j < claves.length && claves[j].equals(claves[i]))
+            j++;
+        return j;
+    }
+
+    // Primera posición de 'claves' que es >= buscado
+    private int primeraClaveDesde(String buscado) {
+        int lo = 0;
+        int hi = claves.length;
+        while (lo < hi) {
+            int medio = (lo + hi) >>> 1;
+            if (claves[medio].compareTo(buscado) < 0)
+                lo = medio + 1;
+            else
+                hi = medio;
+        }
+        return lo;
+    }
+
+    private static Map<String, String> parametros(String query) {
+        Map<String, String> parametros = new HashMap<>();
+        if (query == null || query.isEmpty())
+            return parametros;
+        for (String par : query.split("&")) {
+            int igual = par.indexOf('=');
+            String nombre = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(nombre, StandardCharsets.UTF_8),
+                    URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    private static String requerido(Map<String, String> parametros, String nombre) {
+        String valor = parametros.get(nombre);
+        if (valor == null || valor.isEmpty())
+            throw new IllegalArgumentException("falta el parámetro '" + nombre + "'");
+        return valor;
+    }
+
+    private static int entero(Map<String, String> parametros, String nombre, int porDefecto) {
+        String valor = parametros.get(nombre);
+        if (valor == null)
+            return porDefecto;
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("el parámetro '" + nombre + "' debe ser un entero");
+        }
+    }
+}
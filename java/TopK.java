@@ -0,0 +1,177 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Top-K sin ordenar toda la tabla.
+ * Mantiene un min-heap acotado de tamaño K (en la raíz queda el peor de los K
+ * mejores) y recorre los datos una sola vez: O(n log K) en lugar de O(n log n).
+ *
+ * Igual que imprimirTop20Unicos, no repite nombres: dos filas cuyo nombre
+ * coincide después de trim + minúsculas cuentan como el mismo restaurante y
+ * solo se conserva la de mayor valor.
+ */
+public class TopK {
+    private final RestauranteTable tabla;
+    private final int k;
+
+    // Heap: fila y valor de cada posición
+    private final int[] heapFila;
+    private final double[] heapValor;
+    private int tam;
+
+    // Grupo (nombre normalizado) de cada id del diccionario; -1 = aún no calculado.
+    // Se calcula solo para las filas que llegan a entrar al heap.
+    private int[] grupoDeNombre;
+    private final HashMap<String, Integer> grupos = new HashMap<>();
+    // Posición en el heap de cada grupo (-1 si no está)
+    private int[] posicionGrupo = new int[64];
+    private int[] grupoEnHeap;
+
+    private TopK(RestauranteTable tabla, int k) {
+        this.tabla = tabla;
+        this.k = k;
+        this.heapFila = new int[k];
+        this.heapValor = new double[k];
+        this.grupoEnHeap = new int[k];
+        this.grupoDeNombre = new int[tabla.cantidadNombres()];
+        Arrays.fill(grupoDeNombre, -1);
+        Arrays.fill(posicionGrupo, -1);
+    }
+
+    /**
+     * Calcula la puntuación bayesiana de cada fila (la guarda en la tabla) y en
+     * la misma pasada devuelve las K mejores filas sin nombres repetidos,
+     * de mayor a menor puntuación.
+     */
+    public static int[] topPorPuntuacion(RestauranteTable tabla, int k, double m) {
+        if (k <= 0 || tabla.size() == 0)
+            return new int[0];
+        TopK top = new TopK(tabla, k);
+        double C = KernelPuntuacion.promedio(tabla);
+        int[] resenas = tabla.numeroResenas;
+        double[] ratings = tabla.rating;
+        double[] puntuaciones = tabla.puntuacionTotal;
+        for (int fila = 0; fila < tabla.size(); fila++) {
+            double R = ratings[fila];
+            int v = resenas[fila];
+            double puntuacion = (v / (v + m)) * R + (m / (v + m)) * C;
+            puntuaciones[fila] = puntuacion;
+            top.ofrecer(fila, puntuacion);
+        }
+        return top.resultado();
+    }
+
+    // Las K filas con más reseñas sin nombres repetidos, de mayor a menor
+    public static int[] topPorResenas(RestauranteTable tabla, int k) {
+        if (k <= 0)
+            return new int[0];
+        TopK top = new TopK(tabla, k);
+        int[] resenas = tabla.numeroResenas;
+        for (int fila = 0; fila < tabla.size(); fila++)
+            top.ofrecer(fila, resenas[fila]);
+        return top.resultado();
+    }
+
+    private void ofrecer(int fila, double valor) {
+        // Descarte rápido: si el heap está lleno y no supera al peor, ni se mira el nombre
+        if (tam == k && valor <= heapValor[0])
+            return;
+
+        int grupo = grupo(fila);
+        int pos = posicionGrupo[grupo];
+        if (pos >= 0) {
+            // El nombre ya está en el top: solo se queda con la mejor fila
+            if (valor > heapValor[pos]) {
+                heapFila[pos] = fila;
+                heapValor[pos] = valor;
+                hundir(pos);
+            }
+            return;
+        }
+        if (tam < k) {
+            colocar(tam, fila, valor, grupo);
+            tam++;
+            subir(tam - 1);
+        } else {
+            // Reemplaza a la raíz (el peor de los K) y lo saca del top
+            posicionGrupo[grupoEnHeap[0]] = -1;
+            colocar(0, fila, valor, grupo);
+            hundir(0);
+        }
+    }
+
+    private int grupo(int fila) {
+        int id = tabla.nombreId[fila];
+        int grupo = grupoDeNombre[id];
+        if (grupo < 0) {
+            String normalizado = tabla.nombreDiccionario(id).trim().toLowerCase();
+            Integer existente = grupos.get(normalizado);
+            if (existente == null) {
+                existente = grupos.size();
+                grupos.put(normalizado, existente);
+                if (existente >= posicionGrupo.length) {
+                    int anterior = posicionGrupo.length;
+                    posicionGrupo = Arrays.copyOf(posicionGrupo, anterior * 2);
+                    Arrays.fill(posicionGrupo, anterior, posicionGrupo.length, -1);
+                }
+            }
+            grupo = existente;
+            grupoDeNombre[id] = grupo;
+        }
+        return grupo;
+    }
+
+    private void colocar(int pos, int fila, double valor, int grupo) {
+        heapFila[pos] = fila;
+        heapValor[pos] = valor;
+        grupoEnHeap[pos] = grupo;
+        posicionGrupo[grupo] = pos;
+    }
+
+    private void subir(int pos) {
+        while (pos > 0) {
+            int padre = (pos - 1) / 2;
+            if (heapValor[padre] <= heapValor[pos])
+                break;
+            intercambiar(pos, padre);
+            pos = padre;
+        }
+    }
+
+    private void hundir(int pos) {
+        while (true) {
+            int izq = 2 * pos + 1;
+            if (izq >= tam)
+                break;
+            int menor = izq;
+            if (izq + 1 < tam && heapValor[izq + 1] < heapValor[izq])
+                menor = izq + 1;
+            if (heapValor[pos] <= heapValor[menor])
+                break;
+            intercambiar(pos, menor);
+            pos = menor;
+        }
+    }
+
+    private void intercambiar(int a, int b) {
+        int fila = heapFila[a];
+        double valor = heapValor[a];
+        int grupo = grupoEnHeap[a];
+        colocar(a, heapFila[b], heapValor[b], grupoEnHeap[b]);
+        colocar(b, fila, valor, grupo);
+    }
+
+    // Vacía el heap de menor a mayor, llenando el resultado desde el final
+    private int[] resultado() {
+        int[] filas = new int[tam];
+        while (tam > 0) {
+            filas[tam - 1] = heapFila[0];
+            tam--;
+            if (tam > 0) {
+                colocar(0, heapFila[tam], heapValor[tam], grupoEnHeap[tam]);
+                hundir(0);
+            }
+        }
+        return filas;
+    }
+}
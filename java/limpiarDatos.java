@@ -1,33 +1,59 @@
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Locale;
 
 // Nombre de clase cambiado a Mayúscula (convención de Java)
 public class limpiarDatos {
 
     public static void main(String[] args) throws IOException {
+        // --entrada=ruta lee el CSV del disco en lugar del classpath; --salida=ruta cambia el destino
+        Configuracion config;
+        try {
+            config = Configuracion.desdeArgumentos(args, null, "entrada", "salida");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Uso: java limpiarDatos [--entrada=yelp_database.csv] [--salida=datos_procesados.csv]");
+            System.exit(2);
+            return;
+        }
+        // Reporte JSON de la ejecución (filas, bytes, tiempo, GC); ver Metricas
+        Metricas.iniciar("limpiarDatos");
+        boolean ok;
+        try {
+            ok = limpiar(config);
+        } finally {
+            Metricas.terminar();
+        }
+        if (!ok)
+            System.exit(1);
+    }
+
+    @SuppressWarnings("try")
+    private static boolean limpiar(Configuracion config) throws IOException {
         // Establecemos las reglas de estados unidos por los decimales
         // Aqui se pone con coma en vez de punto, cosa que genera conflictos al leer y
         // escribir el csv
         Locale.setDefault(Locale.US);
         // Asegurar que los archivos se tomen desde la carpeta 'java' donde está este
         // archivo
-        String nombreArchivoEntrada = "yelp_database.csv";
-        String nombreArchivoSalida = "datos_procesados.csv";
+        String nombreArchivoEntrada = config.nombreEntrada("yelp_database.csv");
+        String nombreArchivoSalida = config.texto("salida", "datos_procesados.csv");
         
         // Usar ClassLoader para cargar el archivo de forma portátil con InputStream (busca en los recursos del proyecto y no en los archivos del sistema)
-        InputStream inputStream = limpiarDatos.class.getResourceAsStream("/" + nombreArchivoEntrada);
+        // Con --entrada se lee directo del disco
+        InputStream inputStream = config.abrirEntrada(limpiarDatos.class, nombreArchivoEntrada);
 
         // Verificación de existencia del archivo con if y mensaje de error claro
         if (inputStream == null) {
-            System.err.println("ERROR FATAL: No se encuentra el recurso '" + nombreArchivoEntrada + "'.");
-            System.err.println("Asegúrate de que el archivo esté en la carpeta 'java/' con los .java");
+            System.err.println("ERROR FATAL: No se encuentra '" + nombreArchivoEntrada + "'.");
+            System.err.println("Asegúrate de que el archivo esté en la carpeta 'java/' con los .java"
+                    + " o indica la ruta con --entrada=");
             System.err.println("Directorio actual: " + System.getProperty("user.dir"));
-            return;
+            return false;
         }
 
         // Definimos la ruta de salida en el directorio actual
@@ -35,43 +61,89 @@ public class limpiarDatos {
         
         System.out.println("Creando el archivo con 3 columnas: Organization,Rating,NumberReview");
 
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(inputStream));
-                BufferedWriter bw = new BufferedWriter(new FileWriter(rutaCompletaSalida))) {
-            String linea;
+        // Buffer de salida reutilizable: cada fila se copia byte a byte, sin String.format
+        byte[] salida = new byte[1 << 16];
+        int usados = 0;
+        long filasEscritas = 0;
+        long filasOmitidas = 0;
 
-            linea = br.readLine(); // Saltamos la primera linea (cabecera)
-            // Escribimos la nueva cabecera solo con los datos que nos interesan
-            bw.write("Organization,Rating,NumberReview\n");
+        // Solo nos interesan las columnas 3 (nombre), 5 (rating) y 6 (reseñas)
+        try (Metricas.Fase fase = Metricas.fase("limpieza");
+                LectorCSV lector = new LectorCSV(inputStream, 7);
+                OutputStream os = new FileOutputStream(rutaCompletaSalida)) {
 
-            while ((linea = br.readLine()) != null) {
+            lector.siguienteLinea(); // Saltamos la primera linea (cabecera)
+            // Escribimos la nueva cabecera solo con los datos que nos interesan
+            byte[] cabecera = "Organization,Rating,NumberReview\n".getBytes(StandardCharsets.UTF_8);
+            os.write(cabecera);
 
-                String[] partes = linea.split(",");
+            while (lector.siguienteLinea()) {
                 // Aqui utilizamos un segundo try para asegurarnos de que los datos corruptos no
                 // nos afecten
                 try {
-                    // el nombre esta en la posicion 3 del archivo
-                    String nombre = partes[3];
+                    // Se validan los números directamente sobre los bytes (sin crear Strings);
+                    // si alguno no es numérico la línea se omite aquí y no más adelante
+                    lector.decimal(5);
+                    lector.entero(6);
 
-                    // Se obtiene rating y numero de reseñas (sin hacer cálculos)
-                    String ratingSucio = partes[5];
-                    String numeroResenasSucio = partes[6];
+                    // el nombre esta en la posicion 3 del archivo
+                    lector.quitarComillas(3);
+                    byte[] b = lector.buffer();
+                    int inicioNombre = lector.inicio(3);
+                    int largoNombre = lector.largo(3);
+                    // Rating y reseñas se copian ya limpios (sin comillas ni espacios)
+                    int inicioRating = lector.inicioLimpio(5);
+                    int largoRating = lector.finLimpio(5) - inicioRating;
+                    int inicioResenas = lector.inicioLimpio(6);
+                    int largoResenas = lector.finLimpio(6) - inicioResenas;
 
-                    // .trim regresa sin espacios blancos y replace quita las comillas
-                    String ratingLimpio = ratingSucio.replace("\"", "").trim();
-                    String numeroResenasLimpio = numeroResenasSucio.replace("\"", "").trim();
+                    // Peor caso: nombre con todas sus comillas duplicadas + separadores
+                    int necesario = 2 * largoNombre + largoRating + largoResenas + 5;
+                    if (usados + necesario > salida.length) {
+                        os.write(salida, 0, usados);
+                        usados = 0;
+                        if (necesario > salida.length)
+                            salida = new byte[necesario];
+                    }
 
-                    // Creamos el string que se escribira en el archivo con los datos limpios (solo
-                    // 3 columnas)
-                    String lineaLimpia = String.format("%s,%s,%s\n", nombre, ratingLimpio, numeroResenasLimpio);
-                    bw.write(lineaLimpia);
+                    // Si el nombre tiene comas o comillas se escribe entre comillas
+                    if (LectorCSV.necesitaComillas(b, inicioNombre, largoNombre)) {
+                        salida[usados++] = '"';
+                        for (int k = inicioNombre; k < inicioNombre + largoNombre; k++) {
+                            if (b[k] == '"')
+                                salida[usados++] = '"';
+                            salida[usados++] = b[k];
+                        }
+                        salida[usados++] = '"';
+                    } else {
+                        System.arraycopy(b, inicioNombre, salida, usados, largoNombre);
+                        usados += largoNombre;
+                    }
+                    salida[usados++] = ',';
+                    System.arraycopy(b, inicioRating, salida, usados, largoRating);
+                    usados += largoRating;
+                    salida[usados++] = ',';
+                    System.arraycopy(b, inicioResenas, salida, usados, largoResenas);
+                    usados += largoResenas;
+                    salida[usados++] = '\n';
+                    filasEscritas++;
 
-                } catch (Exception e) {
+                } catch (NumberFormatException e) {
                     // Se ha encontrado una linea corrupta o con menos columnas de las esperadas; la
                     // omitimos
+                    filasOmitidas++;
                     System.err.println("Se ha encontrado una linea corrupta y se omitirá: " + e.getMessage());
                 }
             }
+            os.write(salida, 0, usados);
+            Metricas.contar("bytesLeidos", lector.bytesLeidos());
         }
+        Metricas.contar("filasLeidas", filasEscritas + filasOmitidas);
+        Metricas.contar("filasEscritas", filasEscritas);
+        Metricas.contar("filasMalformadas", filasOmitidas);
+        Metricas.contar("bytesEscritos", new File(rutaCompletaSalida).length());
+        System.out.println("Filas escritas: " + filasEscritas + ", filas omitidas: " + filasOmitidas);
+        return true;
     }
 
 }